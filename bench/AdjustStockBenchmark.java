@@ -0,0 +1,135 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import src.inventory.InventoryManager;
+import src.inventory.storage.ColumnarItemStorage;
+import src.inventory.storage.ItemStorage;
+import src.inventory.storage.MappedItemStorage;
+import src.inventory.storage.TreeItemStorage;
+import src.item.CosmeticItem;
+import src.item.Item;
+
+/**
+ * Measures how many stock adjustments per second several threads can make on a shared {@link InventoryManager},
+ * which adjusts stock without taking its lock.
+ * <p>
+ * By default the adjustments hit a thousand {@link Item}s, as sales tend to concentrate on popular {@link Item}s.
+ * The stock order is then brought up to date once per {@link Item} and batch of adjustments, rather than once per
+ * adjustment. Spreading the adjustments over more {@link Item}s shows the cost of keeping the stock order itself.
+ * </p>
+ * <p>
+ * The storage is one of <code>tree</code>, <code>columnar</code> and <code>mapped</code>. The mapped storage writes
+ * every adjustment through to its file under the shared lock, which shows what that costs over the other two.
+ * </p>
+ * <p>
+ * Run from the root directory with <code>javac ./bench/AdjustStockBenchmark.java</code> and
+ * <code>java bench.AdjustStockBenchmark [threads] [items] [adjustments per thread] [rounds] [storage]</code>. The
+ * first rounds include the warm-up of the JIT compiler, so the last round is the most representative.
+ * </p>
+ */
+public class AdjustStockBenchmark {
+    private static final int defaultThreads = 4;
+    private static final int defaultItems = 1_000;
+    private static final int defaultAdjustments = 2_000_000;
+    private static final int defaultRounds = 3;
+    private static final String defaultStorage = "tree";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : defaultThreads;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : defaultItems;
+        int adjustments = args.length > 2 ? Integer.parseInt(args[2]) : defaultAdjustments;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : defaultRounds;
+        var storage = args.length > 4 ? args[4] : defaultStorage;
+
+        for (int round = 1; round <= rounds; ++round) {
+            System.out.printf("Round %d of %d, %d threads, %d items, %s storage\n", round, rounds, threads, count, storage);
+
+            if (storage.equals("mapped")) {
+                var directory = Files.createTempDirectory("bench");
+
+                try (var mapped = new MappedItemStorage(directory)) {
+                    run(mapped, threads, count, adjustments);
+                } finally {
+                    deleteDirectory(directory);
+                }
+            } else {
+                run(storage.equals("columnar") ? new ColumnarItemStorage() : new TreeItemStorage(), threads, count, adjustments);
+            }
+
+            System.out.println();
+        }
+    }
+
+    private static void run(ItemStorage storage, int threads, int count, int adjustments) throws Exception {
+        var inventoryManager = new InventoryManager(storage);
+        var items = new ArrayList<Item>(count);
+
+        for (int i = 1; i <= count; ++i) {
+            var item = new CosmeticItem(i);
+
+            item.setStock(1_000_000);
+            item.setPrice(1 + i % 50);
+            item.setReorderLevel(i % 100);
+            items.add(item);
+        }
+
+        inventoryManager.addItems(items);
+
+        var pool = Executors.newFixedThreadPool(threads);
+        var work = new ArrayList<Future<?>>();
+        long start = System.nanoTime();
+
+        try {
+            for (int thread = 0; thread < threads; ++thread) {
+                int seed = thread;
+
+                work.add(pool.submit(() -> {
+                    var random = new Random(seed);
+
+                    for (int i = 0; i < adjustments; ++i) {
+                        // Sales and restocks cancel out, so the stock never runs out.
+                        inventoryManager.adjustStock(random.nextInt(count) + 1, i % 2 == 0 ? -1 : 1);
+                    }
+                }));
+            }
+
+            for (var future : work) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        report("adjustStock", (long) threads * adjustments, start);
+
+        // The indexes are brought up to date by the first read after the adjustments.
+        start = System.nanoTime();
+        inventoryManager.getTotals();
+        report("getTotals", 1, start);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+
+    private static void report(String operation, long operations, long start) {
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%-12s %8d ms %12.0f ops/s\n", operation, nanos / 1_000_000, operations * 1e9 / nanos);
+    }
+}
@@ -0,0 +1,162 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import src.inventory.InventoryBackup;
+import src.inventory.InventoryManager;
+import src.inventory.storage.ItemTree;
+import src.item.CosmeticItem;
+import src.item.Item;
+
+/**
+ * Compares adding and removing a large batch of {@link Item}s one by one with the bulk operations of an
+ * {@link InventoryManager}, and times loading a backup of the same size. The same is then done on an {@link ItemTree}
+ * alone, which leaves out the search indexes.
+ * <p>
+ * Run from the root directory with <code>javac ./bench/BulkLoadBenchmark.java</code> and
+ * <code>java bench.BulkLoadBenchmark [items] [rounds]</code>. The first rounds include the warm-up of the JIT
+ * compiler, so the last round is the most representative.
+ * </p>
+ */
+public class BulkLoadBenchmark {
+    private static final int defaultItems = 1_000_000;
+    private static final int defaultRounds = 2;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : defaultItems;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : defaultRounds;
+
+        for (int round = 1; round <= rounds; ++round) {
+            System.out.printf("Round %d of %d, %d items\n", round, rounds, count);
+            run(count);
+            System.out.println();
+        }
+    }
+
+    private static void run(int count) {
+        // Every other ID is taken up front, so the batch has to be merged in between the existing items.
+        var batch = items(count, 1);
+        var ids = new long[count];
+
+        for (int i = 0; i < count; ++i) {
+            ids[i] = batch.get(i).getIdentifier().getID();
+        }
+
+        Collections.shuffle(batch, new Random(1));
+
+        // Only one inventory is kept at a time, so that both fit into the default heap.
+        var inventoryManager = new InventoryManager();
+
+        inventoryManager.addItems(items(count, 0));
+
+        long start = System.nanoTime();
+
+        for (var item : batch) {
+            inventoryManager.addItem(item.clone());
+        }
+
+        report("addItem", start);
+        checkSize(inventoryManager, count * 2);
+
+        start = System.nanoTime();
+
+        for (long id : ids) {
+            inventoryManager.removeItem(id);
+        }
+
+        report("removeItem", start);
+        checkSize(inventoryManager, count);
+
+        inventoryManager = new InventoryManager();
+        inventoryManager.addItems(items(count, 0));
+
+        start = System.nanoTime();
+        inventoryManager.addItems(cloneAll(batch));
+        report("addItems", start);
+        checkSize(inventoryManager, count * 2);
+
+        start = System.nanoTime();
+        inventoryManager.removeItems(ids);
+        report("removeItems", start);
+        checkSize(inventoryManager, count);
+
+        var backup = new InventoryBackup(new ArrayList<>(batch));
+
+        start = System.nanoTime();
+        inventoryManager.loadBackup(backup);
+        report("loadBackup", start);
+        checkSize(inventoryManager, count);
+
+        // Most of the time above goes into the search indexes, so the storage is also timed on its own.
+        var tree = new ItemTree();
+        var sortedBatch = new ArrayList<>(batch);
+
+        sortedBatch.sort(Comparator.comparingLong(item -> item.getIdentifier().getID()));
+        tree.addAll(items(count, 0));
+        start = System.nanoTime();
+
+        for (var item : batch) {
+            tree.add(item);
+        }
+
+        report("tree add", start);
+        start = System.nanoTime();
+
+        for (long id : ids) {
+            tree.remove(id);
+        }
+
+        report("tree remove", start);
+        start = System.nanoTime();
+        tree.addAll(sortedBatch);
+        report("tree addAll", start);
+        start = System.nanoTime();
+        tree.removeAll(ids);
+        report("tree removeAll", start);
+    }
+
+    /**
+     * Creates {@link Item}s with every other ID.
+     *
+     * @param count The amount of {@link Item}s.
+     * @param offset 0 for even IDs, 1 for odd IDs.
+     * @return The {@link Item}s, sorted by their ID.
+     */
+    private static List<Item> items(int count, int offset) {
+        var items = new ArrayList<Item>(count);
+
+        for (int i = 1; i <= count; ++i) {
+            var item = new CosmeticItem(i * 2L + offset);
+
+            item.setStock(i % 100);
+            item.setPrice(1 + i % 50);
+            items.add(item);
+        }
+
+        return items;
+    }
+
+    private static List<Item> cloneAll(List<Item> items) {
+        var clones = new ArrayList<Item>(items.size());
+
+        for (var item : items) {
+            clones.add(item.clone());
+        }
+
+        return clones;
+    }
+
+    private static void checkSize(InventoryManager inventoryManager, int expected) {
+        if (inventoryManager.size() != expected) {
+            throw new IllegalStateException("The inventory has " + inventoryManager.size() + " items instead of " + expected + ".");
+        }
+    }
+
+    private static void report(String operation, long start) {
+        System.out.printf("%-14s %8d ms\n", operation, (System.nanoTime() - start) / 1_000_000);
+    }
+}
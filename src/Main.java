@@ -2,25 +2,21 @@ package src;
 
 import java.util.Scanner;
 
+import src.inventory.InvalidRowPolicy;
 import src.inventory.InventoryBackup;
 import src.inventory.InventoryManager;
+import src.inventory.ReorderListener;
 import src.inventory.search.InventorySearchQuery;
+import src.inventory.search.ItemAttribute;
 import src.inventory.search.ItemFilterMethod;
 import src.inventory.search.ItemSortMethod;
-import src.item.BreakfastSpreadItem;
-import src.item.CosmeticItem;
-import src.item.FruitItem;
 import src.item.Item;
 import src.item.ItemType;
-import src.item.KitchenwareItem;
-import src.item.NoodlesItem;
-import src.item.SoftDrinksItem;
-import src.item.VegetableItem;
-import src.item.WashingItem;
 
 public class Main {
     private static final InventoryManager inventoryManager = new InventoryManager();
     private static final Scanner scanner = new Scanner(System.in);
+    private static final int searchPageSize = 20;
 
     public static void main(String[] args) {
         var line = "=".repeat(35);
@@ -29,6 +25,13 @@ public class Main {
         System.out.println("Inventory Management System");
         System.out.println(line);
 
+        inventoryManager.addReorderListener(new ReorderListener() {
+            @Override
+            public void onBelowReorderLevel(Item item) {
+                System.out.printf("Notice: %s is below its reorder level of %d.\n", item.getIdentifier().getName(), item.getReorderLevel());
+            }
+        });
+
         while (true) {
             System.out.println();
             System.out.println("Main Menu");
@@ -38,13 +41,14 @@ public class Main {
             System.out.println("3. Edit item");
             System.out.println("4. Display item details");
             System.out.println("5. List items");
-            System.out.println("6. Search items");
-            System.out.println("7. Backup items");
-            System.out.println("8. Load backup");
-            System.out.println("9. Exit");
+            System.out.println("6. List items to restock");
+            System.out.println("7. Search items");
+            System.out.println("8. Backup items");
+            System.out.println("9. Load backup");
+            System.out.println("10. Exit");
             System.out.println();
 
-            short selection = getSelection((short) 9, false);
+            short selection = getSelection((short) 10, false);
 
             System.out.println();
             System.out.println(line);
@@ -56,10 +60,11 @@ public class Main {
                 case 3 -> editItem();
                 case 4 -> displayItemDetails();
                 case 5 -> listItems();
-                case 6 -> searchItems();
-                case 7 -> backupItems();
-                case 8 -> loadBackup();
-                case 9 -> {
+                case 6 -> listItemsToRestock();
+                case 7 -> searchItems();
+                case 8 -> backupItems();
+                case 9 -> loadBackup();
+                case 10 -> {
                     System.out.println("Thank you for using the inventory management system!");
                     scanner.close();
 
@@ -93,14 +98,18 @@ public class Main {
         }
 
         var item = constructItem(itemType);
-        inventoryManager.addItem(item);
 
         System.out.println();
-        System.out.println("Item added.");
+
+        if (inventoryManager.addItem(item)) {
+            System.out.println("Item added.");
+        } else {
+            System.out.printf("An item with ID %d already exists.\n", item.getIdentifier().getID());
+        }
     }
 
     private static void removeItem() {
-        if (inventoryManager.getItems().isEmpty()) {
+        if (inventoryManager.isEmpty()) {
             System.out.println("No items are in the inventory manager.");
             return;
         }
@@ -116,20 +125,30 @@ public class Main {
     }
 
     private static void editItem() {
-        if (inventoryManager.getItems().isEmpty()) {
+        if (inventoryManager.isEmpty()) {
             System.out.println("No items are in the inventory manager.");
             return;
         }
 
         var item = promptUserForItem();
 
-        if (item != null) {
-            item.inputData();
+        if (item == null) {
+            return;
+        }
+
+        // The edit is made on a copy and published at once, so nobody sees the item halfway through the edit.
+        // The stock is read first, so that a sale made while the copy is taken is not overwritten by the edit.
+        long stock = item.getStock();
+        var edited = item.clone();
+        edited.inputData();
+
+        if (!inventoryManager.updateItem(item, edited, stock)) {
+            System.out.println("The item was changed or removed while it was being edited.");
         }
     }
 
     private static void displayItemDetails() {
-        if (inventoryManager.getItems().isEmpty()) {
+        if (inventoryManager.isEmpty()) {
             System.out.println("No items are in the inventory manager.");
             return;
         }
@@ -142,16 +161,36 @@ public class Main {
     }
 
     private static void listItems() {
-        if (inventoryManager.getItems().isEmpty()) {
+        if (inventoryManager.isEmpty()) {
             System.out.println("No items are in the inventory manager.");
             return;
         }
 
         inventoryManager.createSheet().print();
+
+        System.out.println();
+        inventoryManager.getTotals().print();
+    }
+
+    private static void listItemsToRestock() {
+        var items = inventoryManager.getItemsBelowReorderLevel();
+
+        if (items.isEmpty()) {
+            System.out.println("No items are below their reorder level.");
+            return;
+        }
+
+        System.out.println("Items to Restock (most critical first)");
+        System.out.println("-".repeat(38));
+        System.out.printf("ID\tName%s\tType%s\tStock\tPrice\tReorder level\n", "-".repeat(50), "-".repeat(16));
+
+        for (var item : items) {
+            System.out.printf("%s\t%d\n", item.generateTableRow(), item.getReorderLevel());
+        }
     }
 
     private static void searchItems() {
-        if (inventoryManager.getItems().isEmpty()) {
+        if (inventoryManager.isEmpty()) {
             System.out.println("No items are in the inventory manager.");
             return;
         }
@@ -168,13 +207,15 @@ public class Main {
             System.out.println("4. Add item type filter");
             System.out.println("5. Remove item type filter");
             System.out.println("6. Remove all item type filters");
-            System.out.println("7. Display search information");
-            System.out.println("8. Search items");
-            System.out.println("9. Return to main menu");
+            System.out.println("7. Set value range filter");
+            System.out.println("8. Remove all value range filters");
+            System.out.println("9. Display search information");
+            System.out.println("10. Search items");
+            System.out.println("11. Return to main menu");
 
-            short selection = getSelection((short) 9, false);
+            short selection = getSelection((short) 11, false);
 
-            if (selection == 9) {
+            if (selection == 11) {
                 return;
             }
 
@@ -300,9 +341,44 @@ public class Main {
                     System.out.println("Item type filters have been deleted.");
                 }
 
-                case 7 -> searchQuery.print();
+                case 7 -> {
+                    ItemAttribute.listAttributes();
+                    System.out.println();
+
+                    while (true) {
+                        short attributeSelection = getSelection((short) ItemAttribute.values().length);
+
+                        if (attributeSelection == -1) {
+                            break;
+                        }
+
+                        try {
+                            var attribute = ItemAttribute.from(attributeSelection);
+                            double min = getBound("Enter minimum " + attribute.toString().toLowerCase(), Double.NEGATIVE_INFINITY);
+                            double max = getBound("Enter maximum " + attribute.toString().toLowerCase(), Double.POSITIVE_INFINITY);
+
+                            searchQuery.setRange(attribute, min, max);
+
+                            System.out.printf("Set the value range filter of %s.\n", attribute);
+
+                            break;
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Invalid range.");
+                        }
+                    }
+                }
 
                 case 8 -> {
+                    searchQuery.emptyRanges();
+                    System.out.println("Value range filters have been deleted.");
+                }
+
+                case 9 -> searchQuery.print();
+
+                case 10 -> {
+                    searchQuery.setLimit(searchPageSize);
+                    searchQuery.setCursor(null);
+
                     var result = inventoryManager.searchItems(searchQuery);
 
                     if (result.getItems().isEmpty()) {
@@ -311,6 +387,25 @@ public class Main {
                     }
 
                     result.print();
+
+                    while (result.getNextCursor() != null) {
+                        System.out.println();
+                        System.out.println("1. Show next page");
+                        System.out.println();
+
+                        if (getSelection((short) 1) == -1) {
+                            break;
+                        }
+
+                        System.out.println();
+
+                        searchQuery.setCursor(result.getNextCursor());
+                        result = inventoryManager.searchItems(searchQuery);
+                        result.print();
+                    }
+
+                    searchQuery.setCursor(null);
+
                     System.out.println();
                     System.out.println("Existing search settings will be saved as long as this menu is active.");
                 }
@@ -321,7 +416,7 @@ public class Main {
     }
 
     private static void backupItems() {
-        if (inventoryManager.getItems().isEmpty()) {
+        if (inventoryManager.isEmpty()) {
             System.out.println("No items are in the inventory manager.");
             return;
         }
@@ -348,14 +443,24 @@ public class Main {
             }
         }
 
-        var backup = InventoryBackup.readBackup(filename);
+        InventoryBackup backup;
 
-        if (backup == null) {
-            System.out.println("Failed to load backup.");
+        try {
+            backup = InventoryBackup.readBackup(filename, InvalidRowPolicy.quarantine);
+        } catch (Exception e) {
+            System.out.printf("Failed to load backup: %s\n", e.getMessage());
             return;
         }
 
-        if (backup.getItems().isEmpty()) {
+        if (!backup.getRowErrors().isEmpty()) {
+            System.out.printf("Skipped %d invalid rows, which were copied to %s.quarantine:\n", backup.getRowErrors().size(), filename);
+
+            for (var error : backup.getRowErrors()) {
+                System.out.println(error.getMessage());
+            }
+        }
+
+        if (backup.isEmpty()) {
             System.out.println("No items were found in the backup file.");
             return;
         }
@@ -368,17 +473,7 @@ public class Main {
     }
 
     private static Item constructItem(ItemType itemType) {
-        var item = switch (itemType) {
-            case cosmetic -> new CosmeticItem();
-            case kitchenware -> new KitchenwareItem();
-            case softDrinks -> new SoftDrinksItem();
-            case breakfastSpread -> new BreakfastSpreadItem();
-            case noodles -> new NoodlesItem();
-            case washing -> new WashingItem();
-            case fruit -> new FruitItem();
-            case vegetables -> new VegetableItem();
-            default -> throw new IllegalArgumentException("Unable to infer item type.");
-        };
+        var item = Item.create(inventoryManager.getIdAllocator().nextId(), itemType);
 
         item.inputData();
         return item;
@@ -412,6 +507,31 @@ public class Main {
         }
     }
 
+    /**
+     * Prompts the user for a bound of a range.
+     *
+     * @param prompt The prompt to display.
+     * @param unbounded The bound to use if the user leaves the input empty.
+     * @return The bound.
+     */
+    private static double getBound(String prompt, double unbounded) {
+        while (true) {
+            System.out.printf("%s (leave empty for none): ", prompt);
+
+            var input = scanner.nextLine().trim();
+
+            if (input.isEmpty()) {
+                return unbounded;
+            }
+
+            try {
+                return Double.parseDouble(input);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid value.");
+            }
+        }
+    }
+
     private static short getSelection(short highest) {
         return getSelection(highest, true);
     }
@@ -0,0 +1,25 @@
+package src.inventory;
+
+/**
+ * Available file formats of an {@link InventoryBackup}.
+ */
+public enum BackupFormat {
+    /**
+     * One comma-separated line per item, with numbers rounded to two decimals. Kept so that older backups can
+     * still be read and backups can be inspected by hand.
+     */
+    csv,
+
+    /**
+     * A versioned binary file with fixed-width records, which stores every value exactly.
+     */
+    binary;
+
+    @Override
+    public String toString() {
+        return switch (this) {
+            case csv -> "CSV";
+            case binary -> "Binary";
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package src.inventory;
+
+/**
+ * Thrown when a row of a {@link BackupFormat#csv} backup cannot be read.
+ */
+public class BackupParseException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final int column;
+
+    /**
+     * @param line The line of the row, starting from 1.
+     * @param column The column at which the row is invalid, in bytes and starting from 1.
+     * @param message Why the row is invalid.
+     */
+    public BackupParseException(long line, int column, String message) {
+        super(String.format("Line %d, column %d: %s", line, column, message));
+
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Gets the line of the row, starting from 1.
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the column at which the row is invalid, in bytes and starting from 1.
+     */
+    public int getColumn() {
+        return column;
+    }
+}
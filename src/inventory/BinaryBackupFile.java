@@ -0,0 +1,302 @@
+package src.inventory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import src.item.FoodItem;
+import src.item.Item;
+import src.item.ItemType;
+import src.item.ItemWithVolume;
+import src.item.ItemWithWeight;
+import src.item.KitchenwareItem;
+
+/**
+ * Reads and writes {@link InventoryBackup}s in the {@link BackupFormat#binary} format.
+ * <p>
+ * A file starts with a header holding a magic number, the format version, the creation time and ID high-water
+ * mark of the backup and the amount of items. Every item follows as a fixed-width record, followed by its name,
+ * description and material as length-prefixed UTF-8 strings. Fields that do not apply to the type of an item are
+ * stored as 0 or an empty string, so that every record has the same layout. All values are big-endian.
+ * </p>
+ */
+final class BinaryBackupFile {
+    static final int magic = 0x494E5642;
+    static final int version = 1;
+
+    private static final int headerSize = 32;
+    // ID, type, stock, price, calories, weight, volume and reorder level.
+    private static final int recordSize = 8 + 1 + 8 + 4 + 4 + 4 + 4 + 8;
+    private static final int bufferSize = 1 << 16;
+
+    private BinaryBackupFile() {}
+
+    /**
+     * Writes an {@link InventoryBackup}.
+     *
+     * @param channel The channel to write to.
+     * @param backup The {@link InventoryBackup}.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void write(WritableByteChannel channel, InventoryBackup backup) throws IOException {
+        var writer = new Writer(channel);
+
+        writer.require(headerSize);
+        writer.buffer
+                .putInt(magic)
+                .putInt(version)
+                .putLong(backup.getCreationTime())
+                .putLong(backup.getIdHighWaterMark())
+                .putLong(backup.size());
+
+        try {
+            backup.forEach(item -> {
+                try {
+                    writer.write(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Reads an {@link InventoryBackup}. The magic number is expected to have been read already.
+     *
+     * @param channel The channel to read from, positioned right after the magic number.
+     * @return The {@link InventoryBackup}.
+     * @throws IOException If an I/O error occurs, or the file is truncated or of an unsupported version.
+     * @throws IllegalArgumentException If a record holds invalid data.
+     */
+    static InventoryBackup read(ReadableByteChannel channel) throws IOException, IllegalArgumentException {
+        var reader = new Reader(channel);
+
+        reader.require(headerSize - Integer.BYTES);
+
+        int fileVersion = reader.buffer.getInt();
+
+        if (fileVersion != version) {
+            throw new IOException("Unsupported backup version: " + fileVersion);
+        }
+
+        long creationTime = reader.buffer.getLong();
+        long idHighWaterMark = reader.buffer.getLong();
+        long count = reader.buffer.getLong();
+
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IOException("Invalid item count: " + count);
+        }
+
+        var items = new ArrayList<Item>((int) Math.min(count, 1 << 16));
+
+        for (long i = 0; i < count; ++i) {
+            items.add(reader.read());
+        }
+
+        return new InventoryBackup(items, creationTime, idHighWaterMark);
+    }
+
+    /**
+     * Encodes records into a buffer and writes the buffer out whenever it fills up.
+     */
+    private static final class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+
+        private Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private void write(Item item) throws IOException {
+            var identifier = item.getIdentifier();
+
+            require(recordSize);
+            buffer
+                    .putLong(identifier.getID())
+                    .put((byte) identifier.getType().ordinal())
+                    .putLong(item.getStock())
+                    .putFloat(item.getPrice())
+                    .putFloat(item instanceof FoodItem foodItem ? foodItem.getCalories() : 0)
+                    .putFloat(item instanceof ItemWithWeight weightItem ? weightItem.getWeight() : 0)
+                    .putFloat(item instanceof ItemWithVolume volumeItem ? volumeItem.getVolume() : 0)
+                    .putLong(item.getReorderLevel());
+
+            writeString(identifier.getName());
+            writeString(identifier.getDescription());
+            writeString(item instanceof KitchenwareItem kitchenwareItem ? kitchenwareItem.getMaterial() : "");
+        }
+
+        private void writeString(String value) throws IOException {
+            var bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+
+            require(Integer.BYTES);
+            buffer.putInt(bytes.length);
+
+            // Strings may be longer than the buffer, so they are copied a buffer at a time.
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Makes sure that the buffer has room for a given amount of bytes, writing it out if it does not.
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Decodes records from a buffer and reads more of the file into the buffer whenever it runs out.
+     */
+    private static final class Reader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+
+        private Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        private Item read() throws IOException, IllegalArgumentException {
+            require(recordSize);
+
+            long id = buffer.getLong();
+            var item = Item.create(id, ItemType.from(buffer.get()));
+
+            item.setStock(buffer.getLong());
+            item.setPrice(buffer.getFloat());
+
+            float calories = buffer.getFloat();
+            float weight = buffer.getFloat();
+            float volume = buffer.getFloat();
+
+            item.setReorderLevel(buffer.getLong());
+
+            if (item instanceof FoodItem foodItem) {
+                foodItem.setCalories(calories);
+            }
+
+            if (item instanceof ItemWithWeight weightItem) {
+                weightItem.setWeight(weight);
+            }
+
+            if (item instanceof ItemWithVolume volumeItem) {
+                volumeItem.setVolume(volume);
+            }
+
+            var identifier = item.getIdentifier();
+            identifier.setName(readString());
+            identifier.setDescription(readString());
+
+            String material = readString();
+
+            if (item instanceof KitchenwareItem kitchenwareItem) {
+                kitchenwareItem.setMaterial(material);
+            }
+
+            return item;
+        }
+
+        private String readString() throws IOException {
+            require(Integer.BYTES);
+
+            int length = buffer.getInt();
+
+            // The length is checked against the rest of the file before anything is allocated for it, as a damaged
+            // length could otherwise ask for up to 2 GiB.
+            if (length < 0 || length > available()) {
+                throw new IOException("Invalid string length: " + length);
+            }
+
+            if (length <= buffer.capacity()) {
+                require(length);
+
+                var value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+
+                return value;
+            }
+
+            // Strings that do not fit into the buffer are gathered a buffer at a time.
+            var bytes = new byte[length];
+
+            for (int offset = 0; offset < length; ) {
+                if (!buffer.hasRemaining()) {
+                    require(1);
+                }
+
+                int chunk = Math.min(buffer.remaining(), length - offset);
+
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Counts the bytes that are left to read, in the buffer and in the rest of the file.
+         *
+         * @return The amount of bytes, {@link Long#MAX_VALUE} if the channel cannot tell its size.
+         */
+        private long available() throws IOException {
+            if (!(channel instanceof SeekableByteChannel seekable)) {
+                return Long.MAX_VALUE;
+            }
+
+            return buffer.remaining() + Math.max(0, seekable.size() - seekable.position());
+        }
+
+        /**
+         * Makes sure that the buffer holds at least a given amount of bytes, reading more of the file if it does
+         * not.
+         *
+         * @throws EOFException If the file ends first.
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+
+            buffer.compact();
+
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("The backup file is truncated.");
+                }
+            }
+
+            buffer.flip();
+        }
+    }
+}
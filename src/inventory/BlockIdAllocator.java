@@ -0,0 +1,83 @@
+package src.inventory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link IdAllocator} that reserves IDs in blocks.
+ * <p>
+ * Every thread draws its IDs from a block of consecutive IDs that only it owns, and only touches the shared
+ * counter once its block runs out. Threads that add {@link src.item.Item}s in parallel therefore neither contend
+ * on one counter nor ever receive the same ID. IDs left over in a block when the thread stops are skipped, so the
+ * IDs handed out may have gaps.
+ * </p>
+ */
+public final class BlockIdAllocator implements IdAllocator {
+    private static final int defaultBlockSize = 64;
+
+    private final int blockSize;
+    private final AtomicLong highWaterMark;
+    // IDs up to this one must not be handed out anymore, even if they are left in a block.
+    private final AtomicLong floor = new AtomicLong();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Creates a {@link BlockIdAllocator} that starts handing out IDs from 1.
+     */
+    public BlockIdAllocator() {
+        this(0, defaultBlockSize);
+    }
+
+    /**
+     * Creates a {@link BlockIdAllocator} that resumes from a high-water mark.
+     *
+     * @param highWaterMark The high-water mark of the previous {@link IdAllocator}. Only IDs above it are handed
+     * out.
+     * @param blockSize The amount of IDs to reserve for a thread at once.
+     * @throws IllegalArgumentException If the high-water mark is negative or the block size is not positive.
+     */
+    public BlockIdAllocator(long highWaterMark, int blockSize) throws IllegalArgumentException {
+        if (highWaterMark < 0) {
+            throw new IllegalArgumentException("The high-water mark must not be negative.");
+        }
+
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("The block size must be more than zero.");
+        }
+
+        this.blockSize = blockSize;
+        this.highWaterMark = new AtomicLong(highWaterMark);
+        floor.set(highWaterMark);
+    }
+
+    @Override
+    public long nextId() {
+        var block = blocks.get();
+
+        if (block.next > block.end || block.next <= floor.get()) {
+            block.end = highWaterMark.addAndGet(blockSize);
+            block.next = block.end - blockSize + 1;
+        }
+
+        return block.next++;
+    }
+
+    @Override
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    @Override
+    public void advanceTo(long id) {
+        // The mark is raised first, so blocks that are reserved from now on lie above the ID.
+        highWaterMark.accumulateAndGet(id, Math::max);
+        floor.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * The IDs a thread has reserved and not handed out yet.
+     */
+    private static final class Block {
+        private long next = 1;
+        private long end;
+    }
+}
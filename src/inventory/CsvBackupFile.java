@@ -0,0 +1,655 @@
+package src.inventory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import src.item.FoodItem;
+import src.item.Item;
+import src.item.ItemType;
+import src.item.ItemWithVolume;
+import src.item.ItemWithWeight;
+
+/**
+ * Reads and writes {@link InventoryBackup}s in the {@link BackupFormat#csv} format.
+ * <p>
+ * Every item is written as one line holding its ID, name, description, type ordinal, stock and price, followed
+ * by its calories, volume and weight where they apply and finally its reorder level. Prices and the other
+ * decimals are written with two decimals, rounded half up, like <code>%.2f</code> does. Backups made before
+ * reorder levels existed do not have them.
+ * </p>
+ * <p>
+ * Both directions work on the bytes of the file through a reused buffer. Lines are encoded straight into the
+ * buffer, which is only written out once it fills up, and numbers are parsed straight from it, so neither creates
+ * strings or formatters for the numbers of an item.
+ * </p>
+ */
+final class CsvBackupFile {
+    private static final int bufferSize = 1 << 16;
+
+    private CsvBackupFile() {}
+
+    /**
+     * Writes an {@link InventoryBackup}.
+     *
+     * @param channel The channel to write to.
+     * @param backup The {@link InventoryBackup}.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void write(WritableByteChannel channel, InventoryBackup backup) throws IOException {
+        var writer = new Writer(channel);
+
+        try {
+            backup.forEach(item -> {
+                try {
+                    writer.write(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Reads an {@link InventoryBackup}.
+     *
+     * @param channel The channel to read from, positioned at the start of the file.
+     * @param policy How to handle rows that cannot be read.
+     * @param quarantine The file to copy rows that cannot be read to under {@link InvalidRowPolicy#quarantine}.
+     * It is only created if there are such rows.
+     * @return The {@link InventoryBackup}. Rows that could not be read are reported by
+     * {@link InventoryBackup#getRowErrors()}.
+     * @throws IOException If an I/O error occurs.
+     * @throws BackupParseException If a row cannot be read under {@link InvalidRowPolicy#fail}.
+     */
+    static InventoryBackup read(ReadableByteChannel channel, InvalidRowPolicy policy, Path quarantine)
+            throws IOException, BackupParseException {
+        var reader = new Reader(channel, policy, quarantine);
+
+        try {
+            return reader.read();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Encodes lines into a buffer and writes the buffer out whenever it fills up.
+     */
+    private static final class Writer {
+        // The longest a number can be: a sign and the 19 digits of a long, or a float in cents with its point.
+        private static final int maxNumberLength = 21;
+        // Floats at least this large are formatted the slow way, as they no longer fit into a long in cents.
+        private static final double maxFastDecimal = 1e15;
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        // Holds the digits of a number in reverse while it is being formatted.
+        private final byte[] digits = new byte[20];
+
+        private Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private void write(Item item) throws IOException {
+            var identifier = item.getIdentifier();
+
+            writeLong(identifier.getID());
+            writeSeparator();
+            writeString(identifier.getName());
+            writeSeparator();
+            writeString(identifier.getDescription());
+            writeSeparator();
+            writeLong(identifier.getType().ordinal());
+            writeSeparator();
+            writeLong(item.getStock());
+            writeSeparator();
+            writeDecimal(item.getPrice());
+
+            // Store additional data.
+            if (item instanceof FoodItem foodItem) {
+                writeSeparator();
+                writeDecimal(foodItem.getCalories());
+            }
+
+            if (item instanceof ItemWithVolume volumeItem) {
+                writeSeparator();
+                writeDecimal(volumeItem.getVolume());
+            }
+
+            if (item instanceof ItemWithWeight weightItem) {
+                writeSeparator();
+                writeDecimal(weightItem.getWeight());
+            }
+
+            writeSeparator();
+            writeLong(item.getReorderLevel());
+            require(1);
+            buffer.put((byte) '\n');
+        }
+
+        private void writeSeparator() throws IOException {
+            require(1);
+            buffer.put((byte) ',');
+        }
+
+        private void writeString(String value) throws IOException {
+            int length = value.length();
+
+            // ASCII is copied straight into the buffer, anything else is encoded as UTF-8 first.
+            for (int i = 0; i < length; ++i) {
+                if (value.charAt(i) >= 0x80) {
+                    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+            }
+
+            for (int i = 0; i < length; ) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+
+                int end = Math.min(length, i + buffer.remaining());
+
+                for (; i < end; ++i) {
+                    buffer.put((byte) value.charAt(i));
+                }
+            }
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            for (int offset = 0; offset < bytes.length; ) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void writeLong(long value) throws IOException {
+            require(maxNumberLength);
+
+            if (value == Long.MIN_VALUE) {
+                writeBytes(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+
+            putDigits(value, 1);
+        }
+
+        /**
+         * Writes a decimal with two decimals, rounding half up like <code>%.2f</code>.
+         */
+        private void writeDecimal(float value) throws IOException {
+            double magnitude = Math.abs((double) value);
+
+            if (!(magnitude < maxFastDecimal)) {
+                writeBytes(String.format(Locale.ROOT, "%.2f", value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            require(maxNumberLength);
+
+            // The sign bit is checked, so that negative zero is written as "-0.00" like %.2f does.
+            if (Float.floatToRawIntBits(value) < 0) {
+                buffer.put((byte) '-');
+            }
+
+            // A float has 24 significant bits, so multiplying it by 100 is exact and rounding the magnitude rounds
+            // half up.
+            putDigits(Math.round(magnitude * 100), 3);
+
+            // Insert the decimal point before the last two digits.
+            int end = buffer.position();
+            byte second = buffer.get(end - 1);
+            byte first = buffer.get(end - 2);
+
+            buffer.put(end - 2, (byte) '.');
+            buffer.put(end - 1, first);
+            buffer.put(second);
+        }
+
+        /**
+         * Writes the digits of a non-negative number, padding it with zeros to a minimum amount of digits.
+         */
+        private void putDigits(long value, int minDigits) {
+            int count = 0;
+
+            do {
+                digits[count++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+
+            while (count < minDigits) {
+                digits[count++] = '0';
+            }
+
+            while (count > 0) {
+                buffer.put(digits[--count]);
+            }
+        }
+
+        /**
+         * Makes sure that the buffer has room for a given amount of bytes, writing it out if it does not.
+         */
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Splits the file into lines and parses every line in place, reading more of the file into the buffer
+     * whenever a line runs past its end.
+     */
+    private static final class Reader {
+        // The ID, name, description, type, stock and price.
+        private static final int requiredFields = 6;
+        // The required fields, up to three type-specific decimals and the reorder level.
+        private static final int maxFields = requiredFields + 4;
+        // Decimals with at most this many digits are parsed without creating a string.
+        private static final int maxFastDigits = 15;
+        private static final double[] powersOfTen = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+        };
+
+        private final ReadableByteChannel channel;
+        private final InvalidRowPolicy policy;
+        private final Path quarantine;
+        private ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        private boolean endOfFile;
+
+        // The line that is being parsed, as positions in the buffer.
+        private long line;
+        private int lineStart;
+        private int lineEnd;
+        private final int[] fieldStarts = new int[maxFields];
+        private final int[] fieldEnds = new int[maxFields];
+
+        private final ArrayList<BackupParseException> errors = new ArrayList<>();
+        private OutputStream quarantined;
+
+        private Reader(ReadableByteChannel channel, InvalidRowPolicy policy, Path quarantine) {
+            this.channel = channel;
+            this.policy = policy;
+            this.quarantine = quarantine;
+            buffer.flip();
+        }
+
+        private InventoryBackup read() throws IOException, BackupParseException {
+            var items = new ArrayList<Item>();
+
+            while (nextLine()) {
+                // Blank lines, such as one left at the end of a file edited by hand, are not rows.
+                if (lineStart == lineEnd) {
+                    continue;
+                }
+
+                try {
+                    items.add(parseRow());
+                } catch (BackupParseException e) {
+                    if (policy == InvalidRowPolicy.fail) {
+                        throw e;
+                    }
+
+                    errors.add(e);
+
+                    if (policy == InvalidRowPolicy.quarantine) {
+                        quarantineLine();
+                    }
+                }
+            }
+
+            return new InventoryBackup(items, List.copyOf(errors));
+        }
+
+        private void close() throws IOException {
+            if (quarantined != null) {
+                quarantined.close();
+            }
+        }
+
+        /**
+         * Moves to the next line of the file.
+         *
+         * @return Whether there was another line.
+         */
+        private boolean nextLine() throws IOException {
+            // How far the current buffer has already been searched for the end of the line.
+            int scanned = 0;
+
+            while (true) {
+                int start = buffer.position();
+                var array = buffer.array();
+
+                for (int i = start + scanned; i < buffer.limit(); ++i) {
+                    if (array[i] == '\n') {
+                        setLine(start, i);
+                        buffer.position(i + 1);
+
+                        return true;
+                    }
+                }
+
+                scanned = buffer.limit() - start;
+
+                if (endOfFile) {
+                    // The last line does not need to end with a line break.
+                    if (scanned == 0) {
+                        return false;
+                    }
+
+                    setLine(start, buffer.limit());
+                    buffer.position(buffer.limit());
+
+                    return true;
+                }
+
+                fill();
+            }
+        }
+
+        private void setLine(int start, int end) {
+            ++line;
+            lineStart = start;
+            lineEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+        }
+
+        /**
+         * Reads more of the file behind the unread bytes of the buffer, growing the buffer if they fill it.
+         */
+        private void fill() throws IOException {
+            if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                var grown = ByteBuffer.allocate(buffer.capacity() * 2);
+
+                grown.put(buffer);
+                buffer = grown;
+            } else {
+                buffer.compact();
+            }
+
+            if (channel.read(buffer) < 0) {
+                endOfFile = true;
+            }
+
+            buffer.flip();
+        }
+
+        private Item parseRow() throws BackupParseException {
+            int fields = split();
+
+            if (fields < requiredFields) {
+                throw error(lineEnd, String.format("Expected at least %d fields, found %d.", requiredFields, fields));
+            }
+
+            long id = parseLong(0, "ID");
+            long typeOrdinal = parseLong(3, "item type");
+            ItemType type;
+
+            try {
+                if (typeOrdinal < Short.MIN_VALUE || typeOrdinal > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid item type: " + typeOrdinal);
+                }
+
+                type = ItemType.from((short) typeOrdinal);
+            } catch (IllegalArgumentException e) {
+                throw error(fieldStarts[3], e.getMessage());
+            }
+
+            var item = Item.create(id, type);
+            var identifier = item.getIdentifier();
+
+            identifier.setName(parseString(1));
+            identifier.setDescription(parseString(2));
+
+            try {
+                item.setStock(parseLong(4, "stock"));
+            } catch (IllegalArgumentException e) {
+                throw error(fieldStarts[4], e.getMessage());
+            }
+
+            try {
+                item.setPrice(parseFloat(5, "price"));
+            } catch (IllegalArgumentException e) {
+                throw error(fieldStarts[5], e.getMessage());
+            }
+
+            int field = requiredFields;
+
+            // Extract additional data.
+            if (item instanceof FoodItem foodItem) {
+                requireField(field, fields, "calories");
+
+                try {
+                    foodItem.setCalories(parseFloat(field, "calories"));
+                } catch (IllegalArgumentException e) {
+                    throw error(fieldStarts[field], e.getMessage());
+                }
+
+                ++field;
+            }
+
+            if (item instanceof ItemWithVolume volumeItem) {
+                requireField(field, fields, "volume");
+
+                try {
+                    volumeItem.setVolume(parseFloat(field, "volume"));
+                } catch (IllegalArgumentException e) {
+                    throw error(fieldStarts[field], e.getMessage());
+                }
+
+                ++field;
+            }
+
+            if (item instanceof ItemWithWeight weightItem) {
+                requireField(field, fields, "weight");
+
+                try {
+                    weightItem.setWeight(parseFloat(field, "weight"));
+                } catch (IllegalArgumentException e) {
+                    throw error(fieldStarts[field], e.getMessage());
+                }
+
+                ++field;
+            }
+
+            // Backups made before reorder levels existed do not have them.
+            if (field < fields) {
+                try {
+                    item.setReorderLevel(parseLong(field, "reorder level"));
+                } catch (IllegalArgumentException e) {
+                    throw error(fieldStarts[field], e.getMessage());
+                }
+
+                ++field;
+            }
+
+            if (field < fields) {
+                throw error(fieldStarts[field], "Unexpected field. Names and descriptions cannot contain commas.");
+            }
+
+            return item;
+        }
+
+        /**
+         * Finds the fields of the current line.
+         *
+         * @return The amount of fields.
+         */
+        private int split() throws BackupParseException {
+            var array = buffer.array();
+            int fields = 0;
+            int start = lineStart;
+
+            for (int i = lineStart; i <= lineEnd; ++i) {
+                if (i < lineEnd && array[i] != ',') {
+                    continue;
+                }
+
+                if (fields == maxFields) {
+                    throw error(start, "Unexpected field. Names and descriptions cannot contain commas.");
+                }
+
+                fieldStarts[fields] = start;
+                fieldEnds[fields++] = i;
+                start = i + 1;
+            }
+
+            return fields;
+        }
+
+        private void requireField(int field, int fields, String name) throws BackupParseException {
+            if (field >= fields) {
+                throw error(lineEnd, "Missing " + name + ".");
+            }
+        }
+
+        private String parseString(int field) {
+            return new String(buffer.array(), fieldStarts[field], fieldEnds[field] - fieldStarts[field], StandardCharsets.UTF_8);
+        }
+
+        private long parseLong(int field, String name) throws BackupParseException {
+            var array = buffer.array();
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            int i = start;
+            boolean negative = false;
+
+            if (i < end && (array[i] == '-' || array[i] == '+')) {
+                negative = array[i++] == '-';
+            }
+
+            if (i == end) {
+                throw error(start, "Invalid " + name + ".");
+            }
+
+            // The value is accumulated negatively, as the lowest long has no positive counterpart.
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long value = 0;
+
+            for (; i < end; ++i) {
+                int digit = array[i] - '0';
+
+                if (digit < 0 || digit > 9) {
+                    throw error(i, "Invalid " + name + ".");
+                }
+
+                if (value < limit / 10 || value * 10 < limit + digit) {
+                    throw error(start, "The " + name + " is out of range.");
+                }
+
+                value = value * 10 - digit;
+            }
+
+            return negative ? value : -value;
+        }
+
+        private float parseFloat(int field, String name) throws BackupParseException {
+            var array = buffer.array();
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            int i = start;
+            boolean negative = false;
+
+            if (i < end && (array[i] == '-' || array[i] == '+')) {
+                negative = array[i++] == '-';
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int decimals = -1;
+
+            for (; i < end; ++i) {
+                byte b = array[i];
+
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+
+                if (b < '0' || b > '9' || digits == maxFastDigits) {
+                    return parseFloatSlowly(start, end, name);
+                }
+
+                mantissa = mantissa * 10 + (b - '0');
+                ++digits;
+
+                if (decimals >= 0) {
+                    ++decimals;
+                }
+            }
+
+            if (digits == 0) {
+                return parseFloatSlowly(start, end, name);
+            }
+
+            // Both the mantissa and the power of ten are exact, so the division is correctly rounded. Rounding the
+            // result to a float again is only wrong when it lands exactly between two floats.
+            double value = mantissa / powersOfTen[Math.max(decimals, 0)];
+
+            if ((Double.doubleToRawLongBits(value) & 0x1FFFFFFFL) == 0x10000000L) {
+                return parseFloatSlowly(start, end, name);
+            }
+
+            return (float) (negative ? -value : value);
+        }
+
+        private float parseFloatSlowly(int start, int end, String name) throws BackupParseException {
+            try {
+                return Float.parseFloat(new String(buffer.array(), start, end - start, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                throw error(start, "Invalid " + name + ".");
+            }
+        }
+
+        private BackupParseException error(int position, String message) {
+            return new BackupParseException(line, position - lineStart + 1, message);
+        }
+
+        /**
+         * Copies the current line as it is to the quarantine file.
+         */
+        private void quarantineLine() throws IOException {
+            if (quarantined == null) {
+                quarantined = new BufferedOutputStream(Files.newOutputStream(quarantine), bufferSize);
+            }
+
+            quarantined.write(buffer.array(), lineStart, lineEnd - lineStart);
+            quarantined.write('\n');
+        }
+    }
+}
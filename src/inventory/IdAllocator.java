@@ -0,0 +1,39 @@
+package src.inventory;
+
+import src.item.Item;
+
+/**
+ * Hands out the IDs of new {@link Item}s in an {@link InventoryManager}.
+ * <p>
+ * Every ID handed out is unique within the {@link IdAllocator} and above its high-water mark at the time it was
+ * reserved, so an {@link IdAllocator} that is restored from its high-water mark never repeats an ID. An
+ * {@link IdAllocator} can be shared between threads.
+ * </p>
+ */
+public interface IdAllocator {
+    /**
+     * Hands out a new ID.
+     *
+     * @return The ID, always above 0.
+     */
+    long nextId();
+
+    /**
+     * Gets the highest ID that this {@link IdAllocator} has reserved so far. IDs up to this one may already have
+     * been handed out, even if they are not in use yet.
+     *
+     * @return The high-water mark, 0 if no ID has been reserved.
+     */
+    long getHighWaterMark();
+
+    /**
+     * Makes sure that IDs up to an ID are never handed out, for example because they are taken by {@link Item}s
+     * that were loaded or added with their own ID.
+     * <p>
+     * IDs that are handed out while this call is in progress may still be at most <code>id</code>.
+     * </p>
+     *
+     * @param id The ID.
+     */
+    void advanceTo(long id);
+}
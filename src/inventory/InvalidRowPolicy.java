@@ -0,0 +1,32 @@
+package src.inventory;
+
+/**
+ * Available ways to handle rows of a {@link BackupFormat#csv} backup that cannot be read.
+ */
+public enum InvalidRowPolicy {
+    /**
+     * Reject the whole backup at the first invalid row.
+     */
+    fail,
+
+    /**
+     * Leave invalid rows out of the backup and keep reading.
+     */
+    skip,
+
+    /**
+     * Leave invalid rows out of the backup and keep reading, copying them as they are to a file next to the
+     * backup that is named after it with <code>.quarantine</code> appended, so that they can be fixed and loaded
+     * later.
+     */
+    quarantine;
+
+    @Override
+    public String toString() {
+        return switch (this) {
+            case fail -> "Fail";
+            case skip -> "Skip";
+            case quarantine -> "Quarantine";
+        };
+    }
+}
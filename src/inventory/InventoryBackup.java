@@ -1,118 +1,199 @@
 package src.inventory;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
-import src.item.BreakfastSpreadItem;
-import src.item.CosmeticItem;
-import src.item.FoodItem;
-import src.item.FruitItem;
 import src.item.Item;
-import src.item.ItemIdentifier;
-import src.item.ItemType;
-import src.item.ItemWithVolume;
-import src.item.ItemWithWeight;
-import src.item.KitchenwareItem;
-import src.item.NoodlesItem;
-import src.item.SoftDrinksItem;
-import src.item.VegetableItem;
-import src.item.WashingItem;
 
 /**
  * Represents the backup of an {@link InventoryManager}.
+ * <p>
+ * A backup of an {@link InventoryManager} reads from an {@link InventorySnapshot}, so creating one does not copy
+ * the {@link Item}s. A backup that was read from a file holds its {@link Item}s instead.
+ * </p>
+ * <p>
+ * Backups are saved in the {@link BackupFormat#binary} format unless another {@link BackupFormat} is asked for.
+ * Reading a backup detects its format from the start of the file, so {@link BackupFormat#csv} backups remain
+ * readable.
+ * </p>
  */
 public class InventoryBackup {
     private final long creationTime;
     private final ArrayList<Item> items;
+    private final InventorySnapshot snapshot;
+    private long idHighWaterMark;
+    private List<BackupParseException> rowErrors = List.of();
     private static final String backupDir = "./backups/";
 
     public InventoryBackup(ArrayList<Item> items) {
         creationTime = System.currentTimeMillis();
 
         this.items = items;
+        snapshot = null;
+
+        for (var item : items) {
+            idHighWaterMark = Math.max(idHighWaterMark, item.getIdentifier().getID());
+        }
     }
 
-    private InventoryBackup() {
-        this(new ArrayList<>(10));
+    /**
+     * @param snapshot The {@link InventorySnapshot} to back up.
+     * @param idHighWaterMark The high-water mark of the {@link IdAllocator} of the {@link InventoryManager}.
+     */
+    public InventoryBackup(InventorySnapshot snapshot, long idHighWaterMark) {
+        creationTime = System.currentTimeMillis();
+
+        items = null;
+        this.snapshot = snapshot;
+        this.idHighWaterMark = idHighWaterMark;
     }
 
     /**
-     * Reads a backup from a file.
+     * @param items The {@link Item}s that were read from a file.
+     * @param creationTime The time the backup was created at.
+     * @param idHighWaterMark The ID high-water mark that was stored with the backup.
+     */
+    InventoryBackup(ArrayList<Item> items, long creationTime, long idHighWaterMark) {
+        this.creationTime = creationTime;
+
+        this.items = items;
+        snapshot = null;
+        this.idHighWaterMark = idHighWaterMark;
+    }
+
+    /**
+     * @param items The {@link Item}s that were read from a file.
+     * @param rowErrors The rows of the file that could not be read.
+     */
+    InventoryBackup(ArrayList<Item> items, List<BackupParseException> rowErrors) {
+        this(items);
+
+        this.rowErrors = rowErrors;
+    }
+
+    /**
+     * Reads a backup from a file, in any {@link BackupFormat}. The whole backup is rejected if a row cannot be
+     * read.
      *
      * @param filename The name of the file.
      * @return An {@link InventoryBackup} generated from the file, <code>null</code>
      * if the backup file contains an error.
      */
     public static InventoryBackup readBackup(String filename) {
-        String dir = backupDir + filename;
-
-        var backup = new InventoryBackup();
-        long highestId = 0;
-
-        try (var scanner = new Scanner(new File(dir))) {
-            while (scanner.hasNextLine()) {
-                String[] parts = scanner.nextLine().split(",");
-                int index = 0;
-
-                long id = Long.parseLong(parts[index++]);
-                String name = parts[index++];
-                String description = parts[index++];
-
-                var item = switch (ItemType.from(Short.parseShort(parts[3]))) {
-                    case cosmetic -> new CosmeticItem(id);
-                    case kitchenware -> new KitchenwareItem(id);
-                    case softDrinks -> new SoftDrinksItem(id);
-                    case breakfastSpread -> new BreakfastSpreadItem(id);
-                    case noodles -> new NoodlesItem(id);
-                    case washing -> new WashingItem(id);
-                    case fruit -> new FruitItem(id);
-                    case vegetables -> new VegetableItem(id);
-                    default -> throw new IllegalArgumentException("Unable to infer item type from backup.");
-                };
-
-                var identifier = item.getIdentifier();
-                identifier.setName(name);
-                identifier.setDescription(description);
-                item.setStock(Long.parseLong(parts[index++]));
-                item.setPrice(Float.parseFloat(parts[index++]));
-
-                // Extract additional data.
-                if (item instanceof FoodItem foodItem) {
-                    foodItem.setCalories(Float.parseFloat(parts[index++]));
-                }
+        try {
+            return readBackup(filename, InvalidRowPolicy.fail);
+        } catch (Exception e) {
+            return null;
+        }
+    }
 
-                if (item instanceof ItemWithVolume volumeItem) {
-                    volumeItem.setVolume(Float.parseFloat(parts[index++]));
-                }
+    /**
+     * Reads a backup from a file, in any {@link BackupFormat}.
+     * <p>
+     * Loading the backup advances the ID allocator of an {@link InventoryManager} past the IDs in it, so that
+     * subsequent item additions have the correct ID.
+     * </p>
+     *
+     * @param filename The name of the file.
+     * @param policy How to handle rows of a {@link BackupFormat#csv} backup that cannot be read. Rows that were
+     * left out are reported by {@link #getRowErrors()}.
+     * @return An {@link InventoryBackup} generated from the file.
+     * @throws IOException If the file cannot be read, or is a {@link BackupFormat#binary} backup that is damaged.
+     * @throws BackupParseException If a row cannot be read under {@link InvalidRowPolicy#fail}.
+     */
+    public static InventoryBackup readBackup(String filename, InvalidRowPolicy policy)
+            throws IOException, BackupParseException {
+        var path = Path.of(backupDir, filename);
 
-                if (item instanceof ItemWithWeight weightItem) {
-                    weightItem.setWeight(Float.parseFloat(parts[index]));
-                }
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var magic = ByteBuffer.allocate(Integer.BYTES);
 
-                // Finally, insert the data and save the highest item ID.
-                backup.items.add(item);
-                highestId = Math.max(highestId, id);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until the magic number is complete or the file ends.
             }
-        } catch (Exception e) {
-            return null;
-        }
 
-        // Set the incremental ID so that subsequent item additions have the correct ID.
-        ItemIdentifier.setIncrementalID(highestId);
+            if (!magic.hasRemaining() && magic.getInt(0) == BinaryBackupFile.magic) {
+                try {
+                    return BinaryBackupFile.read(channel);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
 
-        return backup;
+            channel.position(0);
+
+            return CsvBackupFile.read(channel, policy, Path.of(backupDir, filename + ".quarantine"));
+        }
     }
 
     public long getCreationTime() {
         return creationTime;
     }
 
+    /**
+     * Gets the rows that were left out when this {@link InventoryBackup} was read, because they could not be read.
+     *
+     * @return The errors of the rows, in the order of the rows.
+     */
+    public List<BackupParseException> getRowErrors() {
+        return rowErrors;
+    }
+
+    /**
+     * Gets the ID high-water mark of this {@link InventoryBackup}. IDs up to it are not given out again once the
+     * backup is loaded.
+     */
+    public long getIdHighWaterMark() {
+        return idHighWaterMark;
+    }
+
+    /**
+     * Gets the {@link Item}s in this {@link InventoryBackup}.
+     * <p>
+     * The {@link Item}s of a backup of an {@link InventoryManager} are copied on every call. Prefer
+     * {@link #forEach(Consumer)} to only read them.
+     * </p>
+     */
     public List<Item> getItems() {
-        return items;
+        return snapshot != null ? snapshot.copyItems() : items;
+    }
+
+    /**
+     * Gets the amount of {@link Item}s in this {@link InventoryBackup}.
+     */
+    public int size() {
+        return snapshot != null ? snapshot.size() : items.size();
+    }
+
+    /**
+     * Whether this {@link InventoryBackup} has no {@link Item}s.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Performs an action on every {@link Item} in this {@link InventoryBackup}. The action must not change the
+     * {@link Item}s.
+     *
+     * @param action The action.
+     */
+    public void forEach(Consumer<? super Item> action) {
+        if (snapshot != null) {
+            snapshot.forEach(action);
+        } else {
+            items.forEach(action);
+        }
     }
 
     /**
@@ -125,57 +206,85 @@ public class InventoryBackup {
     }
 
     /**
-     * Saves this backup to a file.
+     * Saves this backup to a file in the {@link BackupFormat#binary} format.
      *
      * @return Whether the operation succeeded.
      */
     public boolean saveToFile() {
-        var file = new File(backupDir, getFilename());
-
-        try {
-            if (!file.createNewFile()) {
-                return false;
-            }
-        } catch (Exception e) {
-            return false;
-        }
-
-        try (var writer = new FileWriter(file)) {
-            for (var item : items) {
-                var identifier = item.getIdentifier();
+        return saveToFile(BackupFormat.binary);
+    }
 
-                writer.write(String.format("%d,%s,%s,%d,%d,%.2f", identifier.getID(), identifier.getName(), identifier.getDescription(), identifier.getType().ordinal(), item.getStock(), item.getPrice()));
+    /**
+     * Saves this backup to a file.
+     *
+     * @param format The {@link BackupFormat} to save in.
+     * @return Whether the operation succeeded.
+     */
+    public boolean saveToFile(BackupFormat format) {
+        var directory = Path.of(backupDir);
+        var target = directory.resolve(getFilename());
 
-                // Store additional data.
-                if (item instanceof FoodItem foodItem) {
-                    writer.write(String.format(",%.2f", foodItem.getCalories()));
-                }
+        // The backup is written to a temporary file first and only moved into place once it is complete, so a
+        // crash midway never leaves a truncated backup behind. The file is created like any other file, rather
+        // than with Files.createTempFile, which would make the backup readable by its owner only.
+        var temporary = directory.resolve(getFilename() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+        boolean created = false;
 
-                if (item instanceof ItemWithVolume volumeItem) {
-                    writer.write(String.format(",%.2f", volumeItem.getVolume()));
-                }
+        try {
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                created = true;
 
-                if (item instanceof ItemWithWeight weightItem) {
-                    writer.write(String.format(",%.2f", weightItem.getWeight()));
+                switch (format) {
+                    case csv -> CsvBackupFile.write(channel, this);
+                    case binary -> BinaryBackupFile.write(channel, this);
                 }
 
-                writer.write("\n");
+                channel.force(true);
             }
+
+            publish(temporary, target);
         } catch (Exception e) {
             return false;
+        } finally {
+            if (created) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // The temporary file is left behind, which does not affect other backups.
+                }
+            }
         }
 
         return true;
     }
 
+    /**
+     * Gives a complete backup file its final name, unless that name is taken already.
+     * <p>
+     * The file is linked under its final name, which fails if the name exists, so no other backup is ever
+     * replaced, even one that is saved at the same time. File systems that do not support links have the name
+     * reserved with an empty file instead, which the backup then replaces.
+     * </p>
+     *
+     * @param temporary The backup file.
+     * @param target The final name of the backup file.
+     * @throws IOException If the name is taken, or the file could not be renamed.
+     */
+    private static void publish(Path temporary, Path target) throws IOException {
+        try {
+            Files.createLink(target, temporary);
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(target);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     public void print() {
         var sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
         System.out.printf("Inventory report as of %s UTC\n\n", sdf.format(creationTime));
         System.out.printf("ID\tName%s\tType%s\tStock\tPrice (RM)\n", " ".repeat(50), " ".repeat(16));
 
-        for (var item : items) {
-            System.out.println(item.generateTableRow());
-        }
+        forEach(item -> System.out.println(item.generateTableRow()));
     }
 }
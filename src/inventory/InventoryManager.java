@@ -1,33 +1,250 @@
 package src.inventory;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import src.inventory.index.LongPostingList;
+import src.inventory.index.SortedIndex;
+import src.inventory.index.TermIndex;
+import src.inventory.index.TrigramIndex;
+import src.inventory.search.ExecutionMode;
 import src.inventory.search.InventorySearchQuery;
 import src.inventory.search.InventorySearchResult;
+import src.inventory.search.ItemRange;
+import src.inventory.search.ItemFilterMethod;
 import src.inventory.search.ItemSortMethod;
+import src.inventory.search.ItemSorter;
+import src.inventory.search.SearchResultCache;
+import src.inventory.search.TopKSelector;
+import src.inventory.storage.ItemStorage;
+import src.inventory.storage.LongHashMap;
+import src.inventory.storage.TreeItemStorage;
+import src.item.FoodItem;
 import src.item.Item;
+import src.item.ItemIdentifier;
+import src.item.ItemListener;
+import src.item.ItemType;
+import src.item.ItemWithVolume;
+import src.item.ItemWithWeight;
+import src.item.KitchenwareItem;
 
 /**
  * The manager of an inventory.
+ * <p>
+ * An {@link InventoryManager} can be shared between threads. Reads never block each other: point lookups are
+ * performed optimistically without acquiring a lock, while scans such as searches and sheets hold a shared read
+ * lock. Writes are serialized against each other and only exclude readers for the duration of a single tree and
+ * index update.
+ * </p>
+ * <p>
+ * Changes to the stock, price, reorder level, calories, weight or volume of an {@link Item} take no lock at all.
+ * The {@link Item} is queued instead, and the indexes and totals that depend on those fields are brought up to
+ * date in a batch the next time they are read. Only storages that {@link ItemStorage#writesThrough() write
+ * through} receive each change right away: stock changes under the shared lock, so that they still do not wait for
+ * each other, and any other change under the exclusive lock.
+ * </p>
+ * <p>
+ * Edits that touch several fields of an {@link Item} should be made on a clone and published with
+ * {@link #updateItem(Item, Item, long)}, which swaps in the new version at once. Readers that hold the previous
+ * version keep seeing it unchanged, and sheets and backups read from an {@link InventorySnapshot}, so neither ever
+ * observes a half-applied edit, and neither blocks writers for longer than a single batch.
+ * </p>
+ * <p>
+ * A storage that already holds {@link Item}s, such as a reopened {@link src.inventory.storage.MappedItemStorage},
+ * is only indexed once a search, a sorted listing, the totals or the reorder state are first needed. Opening it
+ * therefore neither decodes every {@link Item} nor fills the heap with indexes that may never be used.
+ * </p>
  */
 public class InventoryManager {
-    private final ArrayList<Item> items = new ArrayList<>(10);
+    // The amount of queued changes at which a changing thread applies them if the lock happens to be free.
+    private static final int maxPendingChanges = 4096;
+
+    private final StampedLock lock = new StampedLock();
+    private final ItemStorage items;
+    private final IdAllocator idAllocator;
+    private final ItemChangeHandler changeHandler = new ItemChangeHandler();
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final TermIndex descriptionIndex = new TermIndex();
+    // The description each item was last indexed with, which is what has to be removed from the description index.
+    private final LongHashMap<String> indexedDescriptions = new LongHashMap<>();
+    private final SortedIndex<String> nameOrder = new SortedIndex<>();
+    private final SortedIndex<Float> priceOrder = new SortedIndex<>();
+    private final SortedIndex<Long> stockOrder = new SortedIndex<>();
+    private final SortedIndex<Float> caloriesOrder = new SortedIndex<>();
+    private final SortedIndex<Float> weightOrder = new SortedIndex<>();
+    private final SortedIndex<Float> volumeOrder = new SortedIndex<>();
+    // Only holds the items that are below their reorder level, keyed by how much of the reorder level is in stock.
+    private final SortedIndex<Double> reorderOrder = new SortedIndex<>();
+    // The items that were last reported to be below their reorder level. Items do not override equals, so both
+    // sets compare them by identity.
+    private final Set<Item> belowReorderLevel = ConcurrentHashMap.newKeySet();
+    // Items whose stock, price, reorder level, calories, weight or volume changed since the sorted indexes, the
+    // reorder index and the totals were last brought up to date.
+    private final Set<Item> pendingChanges = ConcurrentHashMap.newKeySet();
+    private final CopyOnWriteArrayList<ReorderListener> reorderListeners = new CopyOnWriteArrayList<>();
+    // Whether the indexes, the reorder state and the totals have been built. Only changed under the write lock.
+    private volatile IndexState indexState;
+    // Running totals per item type, indexed by the ordinal of the type. Values are kept in cents.
+    private final long[] typeCounts = new long[ItemType.values().length];
+    private final long[] typeStock = new long[ItemType.values().length];
+    private final long[] typeValues = new long[ItemType.values().length];
+    private volatile ExecutionMode executionMode = ExecutionMode.automatic;
+    private volatile int parallelThreshold = 50_000;
+    private final AtomicLong version = new AtomicLong();
+    private final SearchResultCache searchCache = new SearchResultCache(64);
+    private final CopyOnWriteArrayList<WeakReference<InventorySnapshot>> snapshots = new CopyOnWriteArrayList<>();
+    // Item changes that have been announced to the snapshots but not made yet. No change is announced while a
+    // snapshot is being registered, so that every change either is made before the snapshot or preserves its item
+    // for it.
+    private final AtomicLong changesInFlight = new AtomicLong();
+    private volatile boolean registeringSnapshot;
+
+    /**
+     * Creates an {@link InventoryManager} that stores its {@link Item}s in a {@link TreeItemStorage}.
+     */
+    public InventoryManager() {
+        this(new TreeItemStorage());
+    }
+
+    /**
+     * Creates an {@link InventoryManager} with a specific storage backend, which gives out IDs from a
+     * {@link BlockIdAllocator}.
+     *
+     * @param storage The {@link ItemStorage} to store {@link Item}s in.
+     */
+    public InventoryManager(ItemStorage storage) {
+        this(storage, new BlockIdAllocator());
+    }
+
+    /**
+     * Creates an {@link InventoryManager} with a specific storage backend and {@link IdAllocator}.
+     * <p>
+     * The {@link IdAllocator} is advanced past the IDs that are already in use in the storage, as well as the
+     * high-water mark that the storage persisted. The {@link Item}s in the storage are not indexed until the indexes
+     * are first needed.
+     * </p>
+     *
+     * @param storage The {@link ItemStorage} to store {@link Item}s in.
+     * @param idAllocator The {@link IdAllocator} to give {@link Item}s without an ID one from.
+     */
+    public InventoryManager(ItemStorage storage, IdAllocator idAllocator) {
+        items = storage;
+        this.idAllocator = idAllocator;
+        items.setListener(changeHandler);
+
+        // The storage may already hold items, for example when it is backed by a file.
+        indexState = items.isEmpty() ? IndexState.built : IndexState.none;
+        idAllocator.advanceTo(items.getIdHighWaterMark());
+
+        if (!items.isEmpty()) {
+            idAllocator.advanceTo(items.getLastId());
+        }
+
+        persistIdHighWaterMark();
+    }
 
     /**
      * Adds an {@link Item} to this {@link InventoryManager}.
+     * <p>
+     * An {@link Item} that has no ID yet is given one from the {@link IdAllocator} of this
+     * {@link InventoryManager}. The ID of an {@link Item} that has one is never handed out by the
+     * {@link IdAllocator} afterwards.
+     * </p>
      *
      * @param item The {@link Item} to add.
+     * @return Whether the {@link Item} was added. An {@link Item} will not be added if an {@link Item}
+     * with the same ID already exists.
      */
-    public void addItem(Item item) {
-        int index = getItemIndex(item.getIdentifier().getID());
+    public boolean addItem(Item item) {
+        assignId(item);
 
-        // Check if the item already exists.
-        if (index < items.size() - 1 && items.get(index).getIdentifier().getID() == item.getIdentifier().getID()) {
-            return;
+        long stamp = lock.writeLock();
+
+        try {
+            if (!items.add(item)) {
+                return false;
+            }
+
+            if (indexState == IndexState.built) {
+                index(item);
+            }
+
+            persistIdHighWaterMark();
+            version.incrementAndGet();
+
+            for (var snapshot : liveSnapshots()) {
+                snapshot.onAdded(item.getIdentifier().getID());
+            }
+
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
+    }
+
+    /**
+     * Adds multiple {@link Item}s to this {@link InventoryManager}.
+     * <p>
+     * The batch is sorted by ID once and then merged into the existing {@link Item}s, which is considerably
+     * cheaper than adding a large amount of {@link Item}s one by one.
+     * </p>
+     * <p>
+     * {@link Item}s that have no ID yet are given one from the {@link IdAllocator} of this
+     * {@link InventoryManager} before the lock is taken, so threads that import in parallel do not wait on each
+     * other for IDs.
+     * </p>
+     *
+     * @param items The {@link Item}s to add.
+     * @return The amount of {@link Item}s that were added. An {@link Item} will not be added if an {@link Item}
+     * with the same ID already exists or appears earlier in the batch.
+     */
+    public int addItems(Collection<Item> items) {
+        for (var item : items) {
+            assignId(item);
+        }
+
+        var batch = sortById(items);
+        long stamp = lock.writeLock();
+
+        try {
+            var added = this.items.addAll(batch);
+
+            if (indexState == IndexState.built) {
+                indexAll(added);
+            }
+
+            persistIdHighWaterMark();
+            version.incrementAndGet();
 
-        items.add(index, item);
+            for (var snapshot : liveSnapshots()) {
+                for (var item : added) {
+                    snapshot.onAdded(item.getIdentifier().getID());
+                }
+            }
+
+            return added.size();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -47,258 +264,1856 @@ public class InventoryManager {
      * @return Whether the {@link Item} was removed.
      */
     public boolean removeItem(long id) {
-        if (items.isEmpty()) {
-            return false;
-        }
+        long stamp = lock.writeLock();
 
-        int index = getItemIndex(id);
+        try {
+            var removed = items.remove(id);
 
-        // Make sure that the item is what we actually want to remove.
-        if (index > items.size() - 1 || items.get(index).getIdentifier().getID() != id) {
-            return false;
+            if (removed == null) {
+                return false;
+            }
+
+            if (indexState == IndexState.built) {
+                unindex(removed);
+            }
+
+            version.incrementAndGet();
+
+            for (var snapshot : liveSnapshots()) {
+                snapshot.onRemoved(removed);
+            }
+
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
+    }
+
+    /**
+     * Removes multiple {@link Item}s from this {@link InventoryManager}.
+     * <p>
+     * The IDs are sorted once and then removed from the existing {@link Item}s in a single pass, which is
+     * considerably cheaper than removing a large amount of {@link Item}s one by one.
+     * </p>
+     *
+     * @param ids The IDs of the {@link Item}s to remove.
+     * @return The amount of {@link Item}s that were removed.
+     */
+    public int removeItems(long[] ids) {
+        var sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
 
-        items.remove(index);
+        long stamp = lock.writeLock();
 
-        return true;
+        try {
+            var removed = items.removeAll(sortedIds);
+
+            if (indexState == IndexState.built) {
+                for (var item : removed) {
+                    unindex(item);
+                }
+            }
+
+            version.incrementAndGet();
+
+            for (var snapshot : liveSnapshots()) {
+                for (var item : removed) {
+                    snapshot.onRemoved(item);
+                }
+            }
+
+            return removed.size();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Searches for an {@link Item} with the given ID using the binary search algorithm.
+     * Replaces an {@link Item} with a new version of it, unless it changed since the new version was made.
+     * <p>
+     * The new version is usually an edited clone of the current one. It is swapped in as a whole, so no reader
+     * ever observes an {@link Item} with only part of an edit applied. The previous version is detached from this
+     * {@link InventoryManager}, and its data stays as it was.
+     * </p>
      * <p>
-     * The binary search algorithm narrows the location of the {@link Item} by comparing it against the middle
-     * {@link Item} of the given range. If the {@link Item} is on the left side of the range (<code>left</code>),
-     * the range will be shrunk to the left side of the array. If the {@link Item} is on the right side of the range
-     * (<code>right</code>), the range will be shrunk to the right side of the array. This operation is repeated
-     * until the range is invalid (<code>left > right</code>) or the {@link Item} is found.
+     * Stock is adjusted without taking the lock, so the previous version is checked against its stock as well as
+     * its identity. The stock must be read before the clone is made. A sale that happens afterwards then makes the
+     * update fail, instead of being overwritten by the stock of the clone. Adjustments that are made through this
+     * {@link InventoryManager} after the update are applied to the new version.
      * </p>
      *
+     * @param previous The current version of the {@link Item}, which the new version was made from.
+     * @param item The new version of the {@link Item}.
+     * @param expectedStock The stock of the previous version, read before the new version was made from it.
+     * @return Whether the {@link Item} was replaced. An {@link Item} will not be replaced if the previous version
+     * is no longer the current one, or if its stock changed.
+     * @throws IllegalArgumentException If the versions have different IDs.
+     */
+    public boolean updateItem(Item previous, Item item, long expectedStock) throws IllegalArgumentException {
+        long id = item.getIdentifier().getID();
+
+        if (previous.getIdentifier().getID() != id) {
+            throw new IllegalArgumentException("Both versions of an item must have the same ID.");
+        }
+
+        var crossing = ReorderCrossing.none;
+        long stamp = lock.writeLock();
+
+        try {
+            // Marking the previous version is what stops concurrent adjustments, so it must happen last.
+            if (items.get(id) != previous || !previous.markReplaced(expectedStock)) {
+                return false;
+            }
+
+            items.remove(id);
+            items.add(item);
+            version.incrementAndGet();
+
+            // Without indexes there are no reorder listeners either, so crossings need not be found.
+            if (indexState == IndexState.built) {
+                boolean wasBelow = belowReorderLevel.contains(previous);
+
+                unindex(previous);
+                index(item);
+
+                boolean below = belowReorderLevel.contains(item);
+
+                if (below != wasBelow) {
+                    crossing = below ? ReorderCrossing.below : ReorderCrossing.restocked;
+                }
+            }
+
+            for (var snapshot : liveSnapshots()) {
+                snapshot.onRemoved(previous);
+                snapshot.onAdded(id);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        for (var listener : reorderListeners) {
+            switch (crossing) {
+                case below -> listener.onBelowReorderLevel(item);
+                case restocked -> listener.onRestocked(item);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets an {@link Item} with the given ID.
+     *
      * @param id The ID of the {@link Item}.
      * @return The {@link Item}, <code>null</code> if not found.
      */
     public Item getItem(long id) {
-        int index = getItemIndex(id);
+        // Attempt the lookup without locking first. If a write happened in the meantime, the result
+        // may be inconsistent, in which case the lookup is retried under the read lock.
+        long stamp = items.supportsOptimisticReads() ? lock.tryOptimisticRead() : 0;
+        Item item = null;
+
+        if (stamp != 0) {
+            try {
+                item = items.get(id);
+            } catch (RuntimeException e) {
+                stamp = 0;
+            }
+        }
 
-        if (index > items.size() - 1 || items.get(index).getIdentifier().getID() != id) {
-            return null;
+        if (stamp != 0 && lock.validate(stamp)) {
+            return item;
         }
 
-        return items.get(index);
+        stamp = lock.readLock();
+
+        try {
+            return items.get(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
-     * Gets the {@link Item}s in this {@link InventoryManager}.
+     * Atomically adds an amount to the stock of an {@link Item}.
+     * <p>
+     * The stock is updated with a compare-and-set on the {@link Item} itself, so concurrent adjustments from
+     * several terminals never overwrite each other. The {@link Item} is only queued, and repositioned in the stock
+     * order the next time that order or the totals are read. No lock is taken, except for the shared lock while
+     * the stock is written to a storage that {@link ItemStorage#writesThrough() writes through}.
+     * </p>
+     *
+     * @param id The ID of the {@link Item}.
+     * @param delta The amount to add. Use a negative amount to take stock out.
+     * @return Whether the stock was adjusted. The stock is not adjusted if no {@link Item} with the ID exists.
+     * @throws IllegalArgumentException If the stock would go below zero.
      */
-    public List<Item> getItems() {
-        return items;
+    public boolean adjustStock(long id, long delta) throws IllegalArgumentException {
+        while (true) {
+            var item = getItem(id);
+
+            if (item == null) {
+                return false;
+            }
+
+            try {
+                item.adjustStock(delta);
+                return true;
+            } catch (IllegalStateException e) {
+                // The item was replaced by a new version after it was looked up, so adjust that one instead.
+                if (!item.isReplaced()) {
+                    throw e;
+                }
+            }
+        }
     }
 
     /**
-     * Gets the sorted {@link Item}s on this {@link InventoryManager}.
+     * Atomically sets the stock of an {@link Item} if it is still at an expected value.
      *
-     * @param sortMethod The sort method.
-     * @return The sorted {@link Item}s.
+     * @param id The ID of the {@link Item}.
+     * @param expected The expected stock.
+     * @param stock The new stock.
+     * @return Whether the stock was set. The stock is not set if no {@link Item} with the ID exists or if
+     * its stock was no longer <code>expected</code>.
+     * @throws IllegalArgumentException If the new stock is below zero.
      */
-    public List<Item> getItems(ItemSortMethod sortMethod) {
-        var items = copyItems(false);
+    public boolean compareAndSetStock(long id, long expected, long stock) throws IllegalArgumentException {
+        while (true) {
+            var item = getItem(id);
 
-        sortItems(items, sortMethod);
+            if (item == null) {
+                return false;
+            }
 
-        return items;
+            if (item.compareAndSetStock(expected, stock)) {
+                return true;
+            }
+
+            // A replaced item rejects every change, in which case the new version is tried instead.
+            if (!item.isReplaced()) {
+                return false;
+            }
+        }
     }
 
     /**
-     * Searches for {@link Item}s in this {@link InventoryManager}.
+     * Gets the {@link Item}s whose stock is below their reorder level, the most critical first.
+     * <p>
+     * The {@link Item}s are kept in a separate index as their stock changes, so only the {@link Item}s that are
+     * listed are visited. The most critical {@link Item}s have the least of their reorder level in stock. Equally
+     * critical {@link Item}s are sorted by their ID.
+     * </p>
      *
-     * @param query The query to search for.
-     * @return An {@link InventorySearchResult} containing the search result.
+     * @return The {@link Item}s.
      */
-    public InventorySearchResult searchItems(InventorySearchQuery query) {
-        var items = new ArrayList<Item>(this.items.size());
+    public List<Item> getItemsBelowReorderLevel() {
+        return getMostCriticalItems(Integer.MAX_VALUE);
+    }
 
-        // Apply the filter first and then sort, otherwise the sort operation may be more expensive.
-        for (var item : this.items) {
-            var identifier = item.getIdentifier();
-            boolean insert = true;
+    /**
+     * Gets the {@link Item}s whose stock is furthest below their reorder level.
+     *
+     * @param count The maximum amount of {@link Item}s to get.
+     * @return The {@link Item}s, the most critical first.
+     * @throws IllegalArgumentException If the amount is negative.
+     * @see #getItemsBelowReorderLevel()
+     */
+    public List<Item> getMostCriticalItems(int count) throws IllegalArgumentException {
+        if (count < 0) {
+            throw new IllegalArgumentException("The amount of items must not be negative.");
+        }
 
-            if (!query.getQuery().isEmpty()) {
-                insert = switch (query.getFilterMethod()) {
-                    case name -> identifier.getName().toLowerCase().contains(query.getQuery().toLowerCase());
-                    case description -> identifier.getDescription().toLowerCase().contains(query.getQuery().toLowerCase());
-                };
-            }
+        long stamp = readLock();
 
-            if (!query.getItemTypes().isEmpty()) {
-                insert = query.getItemTypes().contains(identifier.getType());
-            }
+        try {
+            var ids = reorderOrder.first(count);
+            var critical = new ArrayList<Item>(ids.length);
 
-            if (insert) {
-                items.add(item);
+            for (long id : ids) {
+                critical.add(items.get(id));
             }
+
+            return critical;
+        } finally {
+            lock.unlockRead(stamp);
         }
+    }
 
-        sortItems(items, query.getSortMethod());
+    /**
+     * Adds a {@link ReorderListener} that is notified when an {@link Item} crosses its reorder level.
+     *
+     * @param listener The {@link ReorderListener}.
+     */
+    public void addReorderListener(ReorderListener listener) {
+        // Crossings are found against the reorder state, so it must exist before anyone listens for them.
+        ensureIndexed();
+        reorderListeners.add(listener);
+    }
 
-        return new InventorySearchResult(items);
+    /**
+     * Removes a {@link ReorderListener}.
+     *
+     * @param listener The {@link ReorderListener}.
+     */
+    public void removeReorderListener(ReorderListener listener) {
+        reorderListeners.remove(listener);
     }
 
     /**
-     * Loads a backup into this {@link InventoryManager}.
+     * Gets how searches are executed when their query does not specify it.
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Sets how searches are executed when their query does not specify it.
      *
-     * @param backup The {@link InventoryBackup} to load.
-     * @return Whether the operation succeeded.
+     * @param executionMode The {@link ExecutionMode}. {@link ExecutionMode#automatic} executes searches that visit
+     * at least {@link #getParallelThreshold()} {@link Item}s in parallel.
      */
-    public boolean loadBackup(InventoryBackup backup) {
-        // Remove current items first.
-        items.clear();
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Gets the amount of {@link Item}s a search must visit before it is executed in parallel automatically.
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
 
-        for (var item : backup.getItems()) {
-            addItem(item.clone());
+    /**
+     * Sets the amount of {@link Item}s a search must visit before it is executed in parallel automatically.
+     *
+     * @param parallelThreshold The amount of {@link Item}s.
+     * @throws IllegalArgumentException If the amount is negative.
+     */
+    public void setParallelThreshold(int parallelThreshold) throws IllegalArgumentException {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("The parallel threshold must not be negative.");
         }
 
-        return true;
+        this.parallelThreshold = parallelThreshold;
     }
 
     /**
-     * Performs a backup of the {@link Item}s in this {@link InventoryManager}.
-     *
-     * @return An {@link InventoryBackup} containing the backup of this {@link InventoryManager}'s current state.
+     * Gets the {@link IdAllocator} that gives out the IDs of new {@link Item}s in this {@link InventoryManager}.
      */
-    public InventoryBackup createBackup() {
-        return new InventoryBackup(copyItems(true));
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
     }
 
     /**
-     * Creates an {@link InventorySheet} of this {@link InventoryManager}.
-     *
-     * @return An {@link InventorySheet} representing the current state of this {@link InventoryManager}.
+     * Gets the modification version of this {@link InventoryManager}.
+     * <p>
+     * The version is bumped by every change, including changes made directly to the {@link Item}s in this
+     * {@link InventoryManager}, such as stock and price edits.
+     * </p>
      */
-    public InventorySheet createSheet() {
-        return new InventorySheet(copyItems(true));
-    }
-
-    /**
-     * Performs a binary insertion sort on an array of items.
-     *
-     * @param items The array of items to sort.
-     * @param method The method to sort the items for.
-     */
-    private static void sortItems(ArrayList<Item> items, ItemSortMethod method) {
-        for (int i = 1; i < items.size(); i++) {
-            int j = i - 1;
-            var item = items.get(i);
-
-            // We need to search the location where an item should belong using the binary search algorithm.
-            // The binary search algorithm narrows the location of the item by comparing it against the middle
-            // item of the given range. If the item is on the left side of the range (`left`), the range will be shrunk
-            // to the left side of the array. If the item is on the right side of the range (`right`), the range will be
-            // shrunk to the right side of the array. This operation is repeated until the range becomes invalid
-            // (`left > right`) or the supposed location of the item is found.
-            int left = 0;
-            int right = j;
-
-            while (left <= right) {
-                int mid = left + (right - left) / 2;
-                var midItem = items.get(mid);
-
-                // Legend:
-                // - `0` = item is equal
-                // - `>0` = item is on the left
-                // - `<0` = item is on the right
-                int comparison = switch (method) {
-                    case id -> Long.compare(item.getIdentifier().getID(), midItem.getIdentifier().getID());
-                    case name -> item.getIdentifier().getName().toLowerCase().compareTo(midItem.getIdentifier().getName().toLowerCase());
-                    case priceSmallestToHighest, priceHighestToSmallest -> Float.compare(item.getPrice(), midItem.getPrice());
-                    case stockSmallestToHighest, stockHighestToSmallest -> Long.compare(item.getStock(), midItem.getStock());
-                };
-
-                if (comparison >= 0) {
-                    // Two possibilities: the "same" item is found, or the item is on the left side of the range.
-                    left = mid + 1;
-
-                    // The "same" item is found, use the next index for insertion.
-                    if (comparison == 0) {
-                        break;
-                    }
-                } else {
-                    // Item is on the right side of the range.
-                    right = Math.max(mid - 1, 0);
-                }
-            }
+    public long getVersion() {
+        return version.get();
+    }
 
-            int insertionIndex = left;
+    /**
+     * Gets the cache that holds the results of recent searches, which can be used to resize it or to
+     * inspect its hit and miss counts.
+     */
+    public SearchResultCache getSearchCache() {
+        return searchCache;
+    }
 
-            // Move all elements after the index to create space for the selected index.
-            for (int k = i; k > insertionIndex; k--) {
-                items.set(k, items.get(k - 1));
-            }
+    /**
+     * Gets the amount of {@link Item}s in this {@link InventoryManager}.
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int size = items.size();
 
-            items.set(insertionIndex, item);
+        if (lock.validate(stamp)) {
+            return size;
         }
 
-        if (method == ItemSortMethod.priceHighestToSmallest || method == ItemSortMethod.stockHighestToSmallest) {
-            // Reverse the array if the method is descending.
-            for (int i = 0; i < items.size() / 2; i++) {
-                var temp = items.get(i);
-                items.set(i, items.get(items.size() - i - 1));
-                items.set(items.size() - i - 1, temp);
-            }
+        stamp = lock.readLock();
+
+        try {
+            return items.size();
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
     /**
-     * Creates a copy of the {@link Item}s in this {@link InventoryManager}.
+     * Gets the amount of {@link Item}s of a type in this {@link InventoryManager}.
      *
-     * @param deep Whether to deep copy the {@link Item}s.
-     * @return The copied {@link Item}s.
+     * @param type The {@link ItemType}.
+     * @return The amount of {@link Item}s.
      */
-    private ArrayList<Item> copyItems(boolean deep) {
-        var copy = new ArrayList<Item>(items.size());
+    public int getItemCount(ItemType type) {
+        long stamp = lock.readLock();
 
-        for (var item : items) {
-            copy.add(deep ? item.clone() : item);
+        try {
+            return items.countOf(type);
+        } finally {
+            lock.unlockRead(stamp);
         }
-
-        return copy;
     }
 
     /**
-     * Gets the index of an {@link Item} with an ID using the binary search algorithm.
+     * Gets the totals of all {@link Item}s in this {@link InventoryManager}.
      * <p>
-     * The binary search algorithm narrows the location of the {@link Item} by comparing it against the middle
-     * {@link Item} of the given range. If the {@link Item} is on the left side of the range (<code>left</code>),
-     * the range will be shrunk to the left side of the array. If the {@link Item} is on the right side of the range
-     * (<code>right</code>), the range will be shrunk to the right side of the array. This operation is repeated
-     * until the range is invalid (<code>left > right</code>) or the {@link Item} is found.
+     * The totals are kept up to date as {@link Item}s are added, removed, and changed, so they are only computed by
+     * visiting the {@link Item}s when the indexes are first built.
      * </p>
+     */
+    public InventoryTotals getTotals() {
+        return getTotals(ItemType.values());
+    }
+
+    /**
+     * Gets the totals of the {@link Item}s of a type in this {@link InventoryManager}.
      *
-     * @param id The ID of the {@link Item}.
-     * @return The index of the {@link Item} with the ID. If the {@link Item} is not found, the method
-     * will return the index at which the item with that ID would be entered in.
+     * @param type The {@link ItemType}.
+     * @see #getTotals()
      */
-    private int getItemIndex(long id) {
-        if (items.isEmpty()) {
-            return 0;
+    public InventoryTotals getTotals(ItemType type) {
+        return getTotals(new ItemType[] { type });
+    }
+
+    private InventoryTotals getTotals(ItemType[] types) {
+        ensureIndexed();
+
+        if (!pendingChanges.isEmpty()) {
+            long stamp = lock.writeLock();
+
+            try {
+                applyPendingChanges();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
         }
 
-        int left = 0;
-        int right = items.size() - 1;
+        long stamp = lock.tryOptimisticRead();
+        var totals = sumTotals(types);
 
-        while (left <= right) {
-            int mid = left + (right - left) / 2;
-            var midItem = items.get(mid);
+        if (lock.validate(stamp)) {
+            return totals;
+        }
 
-            long midId = midItem.getIdentifier().getID();
+        stamp = lock.readLock();
 
-            if (midId == id) {
-                return mid;
-            } else if (midId < id) {
-                left = mid + 1;
-            } else {
-                right = mid - 1;
+        try {
+            return sumTotals(types);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private InventoryTotals sumTotals(ItemType[] types) {
+        long count = 0;
+        long stock = 0;
+        long value = 0;
+
+        for (var type : types) {
+            count += typeCounts[type.ordinal()];
+            stock += typeStock[type.ordinal()];
+            value += typeValues[type.ordinal()];
+        }
+
+        return new InventoryTotals(count, stock, value);
+    }
+
+    /**
+     * Whether this {@link InventoryManager} has no {@link Item}s.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the {@link Item}s in this {@link InventoryManager}, sorted by their ID.
+     * <p>
+     * The returned list is a copy, so later changes to this {@link InventoryManager} are not reflected in it.
+     * </p>
+     */
+    public List<Item> getItems() {
+        return copyItems();
+    }
+
+    /**
+     * Gets the sorted {@link Item}s on this {@link InventoryManager}.
+     * <p>
+     * The {@link Item}s are kept sorted by every {@link ItemSortMethod} as they change, so no sorting happens here.
+     * </p>
+     *
+     * @param sortMethod The sort method.
+     * @return The sorted {@link Item}s.
+     */
+    public List<Item> getItems(ItemSortMethod sortMethod) {
+        var order = orderOf(sortMethod);
+
+        if (order == null) {
+            return copyItems();
+        }
+
+        long stamp = readLock();
+
+        try {
+            var ids = order.ids(isDescending(sortMethod));
+            var sorted = new ArrayList<Item>(ids.length);
+
+            for (long id : ids) {
+                sorted.add(items.get(id));
             }
+
+            return sorted;
+        } finally {
+            lock.unlockRead(stamp);
         }
+    }
 
-        return left;
+    /**
+     * Searches for {@link Item}s in this {@link InventoryManager}.
+     * <p>
+     * A name search matches {@link Item}s whose name contains the search term. A description search splits the
+     * search term into words and matches {@link Item}s whose description contains every word, which can be
+     * ranked with {@link ItemSortMethod#relevance}.
+     * </p>
+     * <p>
+     * Ranges of the query that only few {@link Item}s are within are looked up in indexes that keep the {@link Item}s
+     * sorted by each {@link src.inventory.search.ItemAttribute}, so such searches do not visit every {@link Item}.
+     * </p>
+     * <p>
+     * If the query has a limit, only that many results are selected, after the cursor of the query if it has one.
+     * </p>
+     * <p>
+     * Results are cached until this {@link InventoryManager} is modified, so repeating a search in the meantime
+     * returns the same {@link InventorySearchResult} without searching again.
+     * </p>
+     *
+     * @param query The query to search for.
+     * @return An {@link InventorySearchResult} containing the search result.
+     * @throws IllegalArgumentException If the cursor of the query belongs to a search with a different sort method.
+     */
+    public InventorySearchResult searchItems(InventorySearchQuery query) throws IllegalArgumentException {
+        var key = SearchResultCache.Key.of(query);
+        var cached = searchCache.get(key, version.get());
+
+        if (cached != null) {
+            return cached;
+        }
+
+        var items = new ArrayList<Item>();
+        var terms = query.getFilterMethod() == ItemFilterMethod.description ?
+                TermIndex.uniqueTerms(query.getQuery()) :
+                List.<String>of();
+        boolean rank = query.getSortMethod() == ItemSortMethod.relevance && !terms.isEmpty();
+        var order = rank ? null : orderOf(query.getSortMethod());
+        boolean parallel;
+        boolean sorted = false;
+        var scores = new ArrayList<ScoredItem>();
+        var selector = query.getLimit() > 0 ?
+                new TopKSelector(query.getSortMethod(), query.getLimit(), query.getCursor()) :
+                null;
+        // The version is read before the queued changes are applied. Any change that is made later bumps the
+        // version past it, so the result is never served for a state that it does not reflect.
+        long searchVersion = version.get();
+        long stamp = readLock();
+
+        try {
+            var candidates = findCandidates(query, terms);
+            Stream<Item> matches;
+
+            parallel = isParallel(query, candidates instanceof Collection<Item> c ? c.size() : this.items.size());
+
+            if (parallel) {
+                // Filtering is the expensive part of a search, so the candidates are split into chunks that are
+                // filtered on the fork/join pool. The read lock is held by this thread while the pool reads the items,
+                // so no write can happen in the meantime.
+                var list = candidates instanceof List<Item> l ? l : copyOf(candidates);
+
+                matches = list.parallelStream();
+            } else {
+                matches = StreamSupport.stream(candidates.spliterator(), false);
+            }
+
+            // Apply the filter first and then sort, otherwise the sort operation may be more expensive.
+            // Candidates are verified, as an item may have been edited after it was looked up in an index.
+            matches = matches.filter(item -> matches(item, query, terms));
+
+            if (rank) {
+                scores = matches
+                        .map(item -> new ScoredItem(item, descriptionIndex.score(item.getIdentifier().getDescription(), terms)))
+                        .collect(Collectors.toCollection(ArrayList::new));
+
+                if (selector != null) {
+                    for (var scored : scores) {
+                        selector.offer(scored.item(), scored.score());
+                    }
+                }
+            } else if (selector != null) {
+                // Only the requested page is kept, so the results never need to be sorted as a whole.
+                matches.forEachOrdered(item -> selector.offer(item, 0));
+            } else {
+                items = matches.collect(Collectors.toCollection(ArrayList::new));
+            }
+
+            // When most items match, picking them out of the maintained order is cheaper than sorting them.
+            if (selector == null && order != null && items.size() * 2 > this.items.size()) {
+                var matching = new LongHashMap<Item>(items.size());
+
+                for (var item : items) {
+                    matching.put(item.getIdentifier().getID(), item);
+                }
+
+                items.clear();
+
+                for (long id : order.ids(isDescending(query.getSortMethod()))) {
+                    var item = matching.get(id);
+
+                    if (item != null) {
+                        items.add(item);
+                    }
+                }
+
+                sorted = true;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        if (selector != null) {
+            return cache(key, searchVersion, new InventorySearchResult(new ArrayList<>(selector.getItems()), selector.getNextCursor()));
+        }
+
+        // The filtered list is not shared, so it can be sorted outside the lock.
+        if (rank) {
+            var ranked = scores.toArray(new ScoredItem[0]);
+            // Equally relevant items stay sorted by their ID. The tie is broken explicitly, as the parallel sort is not
+            // guaranteed to be stable.
+            var byScore = Comparator.comparingDouble(ScoredItem::score).reversed()
+                    .thenComparingLong(scored -> scored.item().getIdentifier().getID());
+
+            if (parallel) {
+                Arrays.parallelSort(ranked, byScore);
+            } else {
+                Arrays.sort(ranked, byScore);
+            }
+
+            for (var scored : ranked) {
+                items.add(scored.item());
+            }
+        } else if (!sorted) {
+            var sorter = parallel ? ItemSorter.parallel(query.getSortMethod()) : ItemSorter.of(query.getSortMethod());
+
+            sorter.sort(items);
+        }
+
+        return cache(key, searchVersion, new InventorySearchResult(items));
+    }
+
+    private InventorySearchResult cache(SearchResultCache.Key key, long version, InventorySearchResult result) {
+        searchCache.put(key, version, result);
+
+        return result;
+    }
+
+    /**
+     * Searches for {@link Item}s in this {@link InventoryManager} lazily.
+     * <p>
+     * Results in ID order are produced on demand: {@link Item}s are looked up and filtered a small batch at a
+     * time, each batch under a short read lock, so consuming the stream takes constant memory and never blocks
+     * writers for long. The stream is weakly consistent: it reflects changes made behind the position it has
+     * reached, but not necessarily changes made in front of it.
+     * </p>
+     * <p>
+     * Any other order has to see every result before it can produce the first, so the search is then performed
+     * with {@link #searchItems(InventorySearchQuery)} and the sorted results are streamed.
+     * </p>
+     * <p>
+     * The query must not be changed while the stream is being consumed.
+     * </p>
+     *
+     * @param query The query to search for.
+     * @return A stream of the matching {@link Item}s.
+     * @throws IllegalArgumentException If the cursor of the query belongs to a search with a different sort method.
+     */
+    public Stream<Item> streamItems(InventorySearchQuery query) throws IllegalArgumentException {
+        var terms = query.getFilterMethod() == ItemFilterMethod.description ?
+                TermIndex.uniqueTerms(query.getQuery()) :
+                List.<String>of();
+        var sortMethod = query.getSortMethod();
+
+        if (sortMethod != ItemSortMethod.id && (sortMethod != ItemSortMethod.relevance || !terms.isEmpty())) {
+            return searchItems(query).getItems().stream();
+        }
+
+        var cursor = query.getCursor();
+        long fromId = Long.MIN_VALUE;
+
+        if (cursor != null) {
+            if (cursor.getSortMethod() != sortMethod) {
+                throw new IllegalArgumentException("The cursor belongs to a search with a different sort method.");
+            }
+
+            if (cursor.getID() == Long.MAX_VALUE) {
+                return Stream.empty();
+            }
+
+            fromId = cursor.getID() + 1;
+        }
+
+        var stream = StreamSupport.stream(new SearchSpliterator(query, terms, fromId), false);
+
+        return query.getLimit() > 0 ? stream.limit(query.getLimit()) : stream;
+    }
+
+    /**
+     * Loads a backup into this {@link InventoryManager}.
+     *
+     * @param backup The {@link InventoryBackup} to load.
+     * @return Whether the operation succeeded.
+     */
+    public boolean loadBackup(InventoryBackup backup) {
+        var clones = new ArrayList<Item>(backup.size());
+
+        backup.forEach(item -> clones.add(item.clone()));
+
+        // Prepare the batch outside the lock, so that readers only need to be excluded while
+        // the current items are being replaced.
+        var batch = sortById(clones);
+
+        // The IDs of the backup are taken before they are published, so that no thread is handed one of them
+        // in the meantime.
+        idAllocator.advanceTo(backup.getIdHighWaterMark());
+
+        if (!batch.isEmpty()) {
+            idAllocator.advanceTo(batch.get(batch.size() - 1).getIdentifier().getID());
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            var snapshots = liveSnapshots();
+
+            // Snapshots keep every replaced item, as if each one had been removed on its own.
+            for (var snapshot : snapshots) {
+                for (var item : items) {
+                    snapshot.onRemoved(item);
+                }
+            }
+
+            items.clear();
+            clearIndexes();
+
+            var added = items.addAll(batch);
+
+            // The backup is on the heap already, so it is indexed right away.
+            indexAll(added);
+            indexState = IndexState.built;
+            persistIdHighWaterMark();
+            version.incrementAndGet();
+
+            for (var snapshot : snapshots) {
+                for (var item : added) {
+                    snapshot.onAdded(item.getIdentifier().getID());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return true;
+    }
+
+    /**
+     * Performs a backup of the {@link Item}s in this {@link InventoryManager}.
+     *
+     * @return An {@link InventoryBackup} containing the backup of this {@link InventoryManager}'s current state.
+     */
+    public InventoryBackup createBackup() {
+        return new InventoryBackup(createSnapshot(), idAllocator.getHighWaterMark());
+    }
+
+    /**
+     * Creates an {@link InventorySheet} of this {@link InventoryManager}.
+     *
+     * @return An {@link InventorySheet} representing the current state of this {@link InventoryManager}.
+     */
+    public InventorySheet createSheet() {
+        return new InventorySheet(createSnapshot());
+    }
+
+    /**
+     * Takes an {@link InventorySnapshot} of this {@link InventoryManager}.
+     * <p>
+     * Taking a snapshot copies nothing. Only {@link Item}s that change or are removed while the snapshot is still
+     * referenced are copied, the first time that happens to each of them.
+     * </p>
+     * <p>
+     * Changes that are being made while the snapshot is taken are waited for, as they did not see the snapshot
+     * when they were announced and so would not copy their {@link Item}s for it.
+     * </p>
+     *
+     * @return An {@link InventorySnapshot} of the current state of this {@link InventoryManager}.
+     */
+    public InventorySnapshot createSnapshot() {
+        long stamp = lock.writeLock();
+
+        try {
+            var snapshot = new InventorySnapshot(lock, items);
+
+            // Stock changes are made without the lock, so the lock alone does not keep them out. Changes hold back
+            // while registeringSnapshot is set, and the ones that were already announced only take a few
+            // instructions to finish, so they are spun on.
+            registeringSnapshot = true;
+
+            try {
+                while (changesInFlight.get() != 0) {
+                    Thread.yield();
+                }
+
+                snapshots.add(new WeakReference<>(snapshot));
+            } finally {
+                registeringSnapshot = false;
+            }
+
+            return snapshot;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the {@link Item}s that may match a query, using the most selective index available.
+     * <p>
+     * Candidates still need to be checked against the query. The caller must hold the lock.
+     * </p>
+     *
+     * @param query The query.
+     * @param terms The terms of the query if it searches descriptions.
+     * @return The candidate {@link Item}s, sorted by their ID.
+     */
+    private Iterable<Item> findCandidates(InventorySearchQuery query, List<String> terms) {
+        var ids = findCandidateIds(query, terms);
+
+        if (ids != null) {
+            var candidates = new ArrayList<Item>(ids.length);
+
+            for (long id : ids) {
+                candidates.add(items.get(id));
+            }
+
+            return candidates;
+        }
+
+        var types = EnumSet.noneOf(ItemType.class);
+
+        types.addAll(query.getItemTypes());
+
+        // Storages that keep numeric fields apart from the items can scan them for the ranges on their own.
+        if (!query.getRanges().isEmpty()) {
+            var inRanges = items.getItemsInRanges(types, query.getRanges());
+
+            if (inRanges != null) {
+                return inRanges;
+            }
+        }
+
+        // Narrow the candidates down by type, so that only items of the requested types are visited.
+        if (!types.isEmpty()) {
+            return items.getItemsOfTypes(types);
+        }
+
+        return items;
+    }
+
+    /**
+     * Gets the IDs of the {@link Item}s that may match a query from the indexes, if any index narrows the search down.
+     * The caller must hold the lock.
+     *
+     * @param query The query.
+     * @param terms The terms of the query if it searches descriptions.
+     * @return The candidate IDs in ascending order, <code>null</code> if every {@link Item} has to be visited.
+     */
+    private long[] findCandidateIds(InventorySearchQuery query, List<String> terms) {
+        long[] ids = null;
+
+        if (!query.getQuery().isEmpty()) {
+            ids = switch (query.getFilterMethod()) {
+                // Queries that are shorter than a trigram cannot be looked up in the index.
+                case name -> nameIndex.find(query.getQuery());
+                case description -> descriptionIndex.find(terms);
+            };
+        }
+
+        // A range is only worth looking up if it holds fewer items than there are candidates already, as visiting a
+        // candidate is cheaper than looking it up. Without any candidates yet, a quarter of the items is the limit.
+        for (var range : query.getRanges()) {
+            int limit = ids != null ? ids.length : items.size() / 4;
+            var rangeIds = findInRange(range, limit);
+
+            if (rangeIds != null) {
+                ids = ids != null ? LongPostingList.intersect(ids, rangeIds) : rangeIds;
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Gets the IDs of the {@link Item}s within an {@link ItemRange}. The caller must hold the lock.
+     *
+     * @param range The {@link ItemRange}.
+     * @param limit The maximum amount of IDs to look up.
+     * @return The IDs in ascending order, <code>null</code> if more than <code>limit</code> {@link Item}s are
+     * within the range.
+     */
+    private long[] findInRange(ItemRange range, int limit) {
+        float min = floatAtLeast(range.min());
+        float max = floatAtMost(range.max());
+
+        return switch (range.attribute()) {
+            // Stock is a whole number, so only the whole numbers within the range need to be looked up.
+            case stock -> stockOrder.ids((long) Math.ceil(range.min()), (long) Math.floor(range.max()), limit);
+            case price -> priceOrder.ids(min, max, limit);
+            case calories -> caloriesOrder.ids(min, max, limit);
+            case weight -> weightOrder.ids(min, max, limit);
+            case volume -> volumeOrder.ids(min, max, limit);
+        };
+    }
+
+    /**
+     * Gets the lowest <code>float</code> that is not below a value.
+     * <p>
+     * Zero is widened to -0, which {@link Float#compareTo(Float)} orders before 0 even though they are equal.
+     * </p>
+     */
+    private static float floatAtLeast(double value) {
+        float result = (float) value;
+
+        if (result < value) {
+            result = Math.nextUp(result);
+        }
+
+        return result == 0 ? -0f : result;
+    }
+
+    /**
+     * Gets the highest <code>float</code> that is not above a value.
+     * <p>
+     * Zero is widened to 0, which {@link Float#compareTo(Float)} orders after -0 even though they are equal.
+     * </p>
+     */
+    private static float floatAtMost(double value) {
+        float result = (float) value;
+
+        if (result > value) {
+            result = Math.nextDown(result);
+        }
+
+        return result == 0 ? 0f : result;
+    }
+
+    /**
+     * Whether a search should be executed in parallel.
+     *
+     * @param query The query of the search.
+     * @param candidates The amount of {@link Item}s the search visits.
+     */
+    private boolean isParallel(InventorySearchQuery query, int candidates) {
+        var mode = query.getExecutionMode() != ExecutionMode.automatic ? query.getExecutionMode() : executionMode;
+
+        return switch (mode) {
+            case sequential -> false;
+            case parallel -> true;
+            case automatic -> candidates >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+        };
+    }
+
+    private static List<Item> copyOf(Iterable<Item> items) {
+        var copy = new ArrayList<Item>();
+
+        for (var item : items) {
+            copy.add(item);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Whether an {@link Item} matches a query.
+     *
+     * @param item The {@link Item}.
+     * @param query The query.
+     * @param terms The terms of the query if it searches descriptions.
+     */
+    private static boolean matches(Item item, InventorySearchQuery query, List<String> terms) {
+        var identifier = item.getIdentifier();
+
+        if (!query.getItemTypes().isEmpty() && !query.getItemTypes().contains(identifier.getType())) {
+            return false;
+        }
+
+        for (var range : query.getRanges()) {
+            if (!range.contains(item)) {
+                return false;
+            }
+        }
+
+        if (query.getQuery().isEmpty()) {
+            return true;
+        }
+
+        return switch (query.getFilterMethod()) {
+            case name -> identifier.getName().toLowerCase().contains(query.getQuery().toLowerCase());
+            case description -> TermIndex.uniqueTerms(identifier.getDescription()).containsAll(terms);
+        };
+    }
+
+    /**
+     * Adds an {@link Item} to the indexes of this {@link InventoryManager}. The caller must hold the write lock.
+     *
+     * @param item The {@link Item}.
+     */
+    private void index(Item item) {
+        var identifier = item.getIdentifier();
+
+        nameIndex.add(identifier.getID(), identifier.getName());
+        descriptionIndex.add(identifier.getID(), identifier.getDescription());
+        indexedDescriptions.put(identifier.getID(), identifier.getDescription());
+        nameOrder.put(identifier.getID(), identifier.getName().toLowerCase());
+        priceOrder.put(identifier.getID(), item.getPrice());
+        stockOrder.put(identifier.getID(), item.getStock());
+
+        if (item instanceof FoodItem foodItem) {
+            caloriesOrder.put(identifier.getID(), foodItem.getCalories());
+        }
+
+        if (item instanceof ItemWithWeight weightItem) {
+            weightOrder.put(identifier.getID(), weightItem.getWeight());
+        }
+
+        if (item instanceof ItemWithVolume volumeItem) {
+            volumeOrder.put(identifier.getID(), volumeItem.getVolume());
+        }
+
+        if (item.isBelowReorderLevel()) {
+            reorderOrder.put(identifier.getID(), reorderKey(item));
+            belowReorderLevel.add(item);
+        }
+
+        addToTotals(identifier.getType(), identifier.getID(), 1);
+    }
+
+    /**
+     * Adds multiple {@link Item}s to the indexes of this {@link InventoryManager}. The caller must hold the write
+     * lock.
+     *
+     * @param items The {@link Item}s, sorted by their ID. None of them may be indexed yet.
+     */
+    private void indexAll(List<Item> items) {
+        for (var item : items) {
+            var identifier = item.getIdentifier();
+
+            nameIndex.add(identifier.getID(), identifier.getName());
+            descriptionIndex.add(identifier.getID(), identifier.getDescription());
+            indexedDescriptions.put(identifier.getID(), identifier.getDescription());
+        }
+
+        ToLongFunction<Item> id = item -> item.getIdentifier().getID();
+
+        nameOrder.putAll(sortedBy(items, ItemSortMethod.name), id, item -> item.getIdentifier().getName().toLowerCase());
+        priceOrder.putAll(sortedBy(items, ItemSortMethod.priceSmallestToHighest), id, Item::getPrice);
+        stockOrder.putAll(sortedBy(items, ItemSortMethod.stockSmallestToHighest), id, Item::getStock);
+
+        var foodItems = new ArrayList<FoodItem>();
+        var weightItems = new ArrayList<Item>();
+        var volumeItems = new ArrayList<Item>();
+        var reorderItems = new ArrayList<Item>();
+
+        for (var item : items) {
+            if (item instanceof FoodItem foodItem) {
+                foodItems.add(foodItem);
+            }
+
+            if (item instanceof ItemWithWeight) {
+                weightItems.add(item);
+            }
+
+            if (item instanceof ItemWithVolume) {
+                volumeItems.add(item);
+            }
+
+            if (item.isBelowReorderLevel()) {
+                reorderItems.add(item);
+            }
+        }
+
+        caloriesOrder.putAll(foodItems, item -> item.getIdentifier().getID(), FoodItem::getCalories);
+        weightOrder.putAll(weightItems, id, item -> ((ItemWithWeight) item).getWeight());
+        volumeOrder.putAll(volumeItems, id, item -> ((ItemWithVolume) item).getVolume());
+        reorderOrder.putAll(reorderItems, id, InventoryManager::reorderKey);
+        belowReorderLevel.addAll(reorderItems);
+
+        for (var item : items) {
+            addToTotals(item.getIdentifier().getType(), item.getIdentifier().getID(), 1);
+        }
+    }
+
+    /**
+     * Adds an indexed {@link Item} to, or removes it from, the running totals. The caller must hold the write lock.
+     * <p>
+     * The price and stock the {@link Item} was indexed with are used rather than its current ones, so that what
+     * is removed from the totals is always exactly what was added, even if the {@link Item} changed in the
+     * meantime.
+     * </p>
+     *
+     * @param type The {@link ItemType} of the {@link Item}.
+     * @param id The ID of the {@link Item}.
+     * @param sign 1 to add the {@link Item}, -1 to remove it.
+     */
+    private void addToTotals(ItemType type, long id, int sign) {
+        addToTotals(type, priceOrder.get(id), stockOrder.get(id), sign);
+        typeCounts[type.ordinal()] += sign;
+    }
+
+    /**
+     * Adds the stock of an {@link Item} to, or removes it from, the running totals. The caller must hold the write
+     * lock.
+     *
+     * @param type The {@link ItemType} of the {@link Item}.
+     * @param price The price of the {@link Item}.
+     * @param stock The stock of the {@link Item}.
+     * @param sign 1 to add the stock, -1 to remove it.
+     */
+    private void addToTotals(ItemType type, float price, long stock, int sign) {
+        typeStock[type.ordinal()] += sign * stock;
+        typeValues[type.ordinal()] += sign * InventoryTotals.valueInCents(price, stock);
+    }
+
+    /**
+     * Gets the key of an {@link Item} that is below its reorder level in the reorder index.
+     *
+     * @param item The {@link Item}.
+     * @return The fraction of its reorder level that the {@link Item} has in stock.
+     */
+    private static Double reorderKey(Item item) {
+        return (double) item.getStock() / item.getReorderLevel();
+    }
+
+    /**
+     * Sorts a copy of {@link Item}s that are sorted by their ID, so that they can be added to a {@link SortedIndex}
+     * cheaply.
+     * <p>
+     * The sorters are stable, so {@link Item}s that share a key stay sorted by their ID, which is the order of a
+     * {@link SortedIndex}.
+     * </p>
+     *
+     * @param items The {@link Item}s, sorted by their ID.
+     * @param sortMethod The {@link ItemSortMethod} to sort the copy by.
+     * @return The sorted copy.
+     */
+    private static List<Item> sortedBy(List<Item> items, ItemSortMethod sortMethod) {
+        var sorted = new ArrayList<>(items);
+
+        ItemSorter.of(sortMethod).sort(sorted);
+
+        return sorted;
+    }
+
+    /**
+     * Removes an {@link Item} from the indexes of this {@link InventoryManager}. The caller must hold the write lock.
+     *
+     * @param item The {@link Item}.
+     */
+    private void unindex(Item item) {
+        var identifier = item.getIdentifier();
+
+        addToTotals(identifier.getType(), identifier.getID(), -1);
+
+        nameIndex.remove(identifier.getID(), identifier.getName());
+        descriptionIndex.remove(identifier.getID(), indexedDescriptions.remove(identifier.getID()));
+        nameOrder.remove(identifier.getID());
+        priceOrder.remove(identifier.getID());
+        stockOrder.remove(identifier.getID());
+        caloriesOrder.remove(identifier.getID());
+        weightOrder.remove(identifier.getID());
+        volumeOrder.remove(identifier.getID());
+        reorderOrder.remove(identifier.getID());
+        belowReorderLevel.remove(item);
+    }
+
+    /**
+     * Brings the sorted indexes, the reorder index, the totals and the storage up to date with the {@link Item}s
+     * that changed since this was last done. The caller must hold the write lock.
+     */
+    private void applyPendingChanges() {
+        for (var iterator = pendingChanges.iterator(); iterator.hasNext();) {
+            var item = iterator.next();
+
+            // The item is dequeued before it is read, so that a change made in the meantime queues it again.
+            iterator.remove();
+
+            long id = item.getIdentifier().getID();
+
+            // The item may have been removed since it changed. Removed items no longer have the change handler as
+            // their listener.
+            if (item.getListener() != changeHandler || !nameOrder.contains(id)) {
+                continue;
+            }
+
+            var type = item.getIdentifier().getType();
+            float price = item.getPrice();
+            long stock = item.getStock();
+
+            addToTotals(type, priceOrder.get(id), stockOrder.get(id), -1);
+            addToTotals(type, price, stock, 1);
+            priceOrder.put(id, price);
+            stockOrder.put(id, stock);
+
+            if (item instanceof FoodItem foodItem) {
+                caloriesOrder.put(id, foodItem.getCalories());
+            }
+
+            if (item instanceof ItemWithWeight weightItem) {
+                weightOrder.put(id, weightItem.getWeight());
+            }
+
+            if (item instanceof ItemWithVolume volumeItem) {
+                volumeOrder.put(id, volumeItem.getVolume());
+            }
+
+            if (item.isBelowReorderLevel()) {
+                reorderOrder.put(id, reorderKey(item));
+            } else {
+                reorderOrder.remove(id);
+            }
+
+            if (items.mirrorsItemData()) {
+                items.refresh(item);
+            }
+        }
+    }
+
+    /**
+     * Builds the indexes, the reorder state and the totals from the {@link Item}s in the storage, unless that
+     * happened already.
+     */
+    private void ensureIndexed() {
+        if (indexState == IndexState.built) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            if (indexState != IndexState.none) {
+                return;
+            }
+
+            // Changes made from now on are queued, as the items may be read before or after they happen.
+            indexState = IndexState.building;
+
+            try {
+                var existing = new ArrayList<Item>(items.size());
+
+                for (var item : items) {
+                    existing.add(item);
+                }
+
+                indexAll(existing);
+            } catch (RuntimeException e) {
+                clearIndexes();
+                indexState = IndexState.none;
+                throw e;
+            }
+
+            indexState = IndexState.built;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Clears the indexes, the reorder state and the totals. The caller must hold the write lock.
+     */
+    private void clearIndexes() {
+        pendingChanges.clear();
+        belowReorderLevel.clear();
+        nameIndex.clear();
+        descriptionIndex.clear();
+        indexedDescriptions.clear();
+        nameOrder.clear();
+        priceOrder.clear();
+        stockOrder.clear();
+        caloriesOrder.clear();
+        weightOrder.clear();
+        volumeOrder.clear();
+        reorderOrder.clear();
+        Arrays.fill(typeCounts, 0);
+        Arrays.fill(typeStock, 0);
+        Arrays.fill(typeValues, 0);
+    }
+
+    /**
+     * Acquires the read lock once the indexes have been built and the queued changes have been applied, so that
+     * the indexes can be read.
+     *
+     * @return The stamp of the read lock.
+     */
+    private long readLock() {
+        ensureIndexed();
+
+        if (pendingChanges.isEmpty()) {
+            return lock.readLock();
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            applyPendingChanges();
+        } catch (RuntimeException e) {
+            lock.unlockWrite(stamp);
+            throw e;
+        }
+
+        return lock.tryConvertToReadLock(stamp);
+    }
+
+    /**
+     * Gets the {@link SortedIndex} that keeps {@link Item}s sorted by an {@link ItemSortMethod}.
+     *
+     * @param sortMethod The {@link ItemSortMethod}.
+     * @return The {@link SortedIndex}, <code>null</code> if the {@link Item}s should be listed in ID order.
+     */
+    private SortedIndex<?> orderOf(ItemSortMethod sortMethod) {
+        return switch (sortMethod) {
+            case id, relevance -> null;
+            case name -> nameOrder;
+            case priceSmallestToHighest, priceHighestToSmallest -> priceOrder;
+            case stockSmallestToHighest, stockHighestToSmallest -> stockOrder;
+        };
+    }
+
+    private static boolean isDescending(ItemSortMethod sortMethod) {
+        return sortMethod == ItemSortMethod.priceHighestToSmallest || sortMethod == ItemSortMethod.stockHighestToSmallest;
+    }
+
+    /**
+     * Sorts a batch of {@link Item}s by their ID.
+     * <p>
+     * The sort is stable, so the first of several {@link Item}s sharing an ID stays in front.
+     * </p>
+     *
+     * @param items The {@link Item}s to sort.
+     * @return A sorted copy of the batch.
+     */
+    private static ArrayList<Item> sortById(Collection<Item> items) {
+        var sorted = new ArrayList<>(items);
+
+        sorted.sort(Comparator.comparingLong(item -> item.getIdentifier().getID()));
+
+        return sorted;
+    }
+
+    /**
+     * Creates a shallow copy of the {@link Item}s in this {@link InventoryManager}.
+     *
+     * @return The copied {@link Item}s.
+     */
+    private ArrayList<Item> copyItems() {
+        long stamp = lock.readLock();
+
+        try {
+            var copy = new ArrayList<Item>(items.size());
+
+            for (var item : items) {
+                copy.add(item);
+            }
+
+            return copy;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gives an {@link Item} an ID from the {@link IdAllocator} of this {@link InventoryManager} if it has none yet,
+     * or otherwise makes sure that the {@link IdAllocator} never hands out its ID.
+     *
+     * @param item The {@link Item}.
+     */
+    private void assignId(Item item) {
+        var identifier = item.getIdentifier();
+
+        if (identifier.getID() == ItemIdentifier.unassignedId) {
+            identifier.setID(idAllocator.nextId());
+        } else {
+            // The ID may lie within a block that a thread has reserved but not used up yet, so the allocator is
+            // advanced even if the ID is below its high-water mark.
+            idAllocator.advanceTo(identifier.getID());
+        }
+    }
+
+    /**
+     * Persists the high-water mark of the {@link IdAllocator} with the storage, so that IDs are not repeated once
+     * the storage is reopened. The caller must hold the write lock.
+     */
+    private void persistIdHighWaterMark() {
+        items.setIdHighWaterMark(idAllocator.getHighWaterMark());
+    }
+
+    /**
+     * Gets the {@link InventorySnapshot}s that are still referenced, forgetting those that are not.
+     *
+     * @return The {@link InventorySnapshot}s.
+     */
+    private List<InventorySnapshot> liveSnapshots() {
+        if (snapshots.isEmpty()) {
+            return List.of();
+        }
+
+        var live = new ArrayList<InventorySnapshot>(snapshots.size());
+
+        for (var reference : snapshots) {
+            var snapshot = reference.get();
+
+            if (snapshot != null) {
+                live.add(snapshot);
+            } else {
+                snapshots.remove(reference);
+            }
+        }
+
+        return live;
+    }
+
+    /**
+     * Produces the results of a search in ID order, a batch at a time.
+     */
+    private final class SearchSpliterator extends Spliterators.AbstractSpliterator<Item> {
+        private static final int batchSize = 256;
+        private static final int scanLimit = 4096;
+
+        private final InventorySearchQuery query;
+        private final List<String> terms;
+        private final ArrayDeque<Item> batch = new ArrayDeque<>(batchSize);
+        private long nextId;
+        private long[] candidateIds;
+        private boolean indexed;
+        private boolean exhausted;
+
+        /**
+         * @param query The query.
+         * @param terms The terms of the query if it searches descriptions.
+         * @param fromId The ID to start searching at.
+         */
+        SearchSpliterator(InventorySearchQuery query, List<String> terms, long fromId) {
+            super(Long.MAX_VALUE, ORDERED | DISTINCT | NONNULL);
+
+            this.query = query;
+            this.terms = terms;
+            nextId = fromId;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            while (batch.isEmpty() && !exhausted) {
+                fill();
+            }
+
+            if (batch.isEmpty()) {
+                return false;
+            }
+
+            action.accept(batch.poll());
+
+            return true;
+        }
+
+        /**
+         * Looks up the next batch of results. A bounded amount of {@link Item}s is visited per call, so that the
+         * read lock is never held for long, even if few {@link Item}s match.
+         */
+        private void fill() {
+            long stamp = readLock();
+
+            try {
+                if (!indexed) {
+                    // The IDs that an index narrows the search down to are primitives, so they are cheap to hold on to.
+                    candidateIds = findCandidateIds(query, terms);
+                    indexed = true;
+                }
+
+                if (candidateIds != null) {
+                    fillFromCandidates();
+                } else {
+                    fillFromStorage();
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private void fillFromCandidates() {
+            int index = Arrays.binarySearch(candidateIds, nextId);
+
+            if (index < 0) {
+                index = -index - 1;
+            }
+
+            int end = Math.min(candidateIds.length, index + scanLimit);
+
+            for (; index < end && batch.size() < batchSize; ++index) {
+                var item = items.get(candidateIds[index]);
+
+                if (item != null && matches(item, query, terms)) {
+                    batch.add(item);
+                }
+            }
+
+            if (index == candidateIds.length) {
+                exhausted = true;
+            } else {
+                nextId = candidateIds[index];
+            }
+        }
+
+        private void fillFromStorage() {
+            var iterator = items.iterator(nextId);
+
+            for (int scanned = 0; scanned < scanLimit && batch.size() < batchSize; ++scanned) {
+                if (!iterator.hasNext()) {
+                    exhausted = true;
+                    return;
+                }
+
+                var item = iterator.next();
+                long id = item.getIdentifier().getID();
+
+                if (matches(item, query, terms)) {
+                    batch.add(item);
+                }
+
+                if (id == Long.MAX_VALUE) {
+                    exhausted = true;
+                    return;
+                }
+
+                nextId = id + 1;
+            }
+        }
+    }
+
+    /**
+     * An {@link Item} that matched a search, along with how relevant it is to the search.
+     */
+    private record ScoredItem(Item item, double score) {}
+
+    /**
+     * How far the indexes of an {@link InventoryManager} have been built.
+     */
+    private enum IndexState {
+        none,
+        building,
+        built
+    }
+
+    /**
+     * How an {@link Item} crossed its reorder level.
+     */
+    private enum ReorderCrossing {
+        none,
+        below,
+        restocked
+    }
+
+    /**
+     * Keeps the storage of this {@link InventoryManager} in sync with changes made directly to its {@link Item}s.
+     */
+    private final class ItemChangeHandler implements ItemListener {
+        @Override
+        public void beforeChange(Item item) {
+            changesInFlight.incrementAndGet();
+
+            while (registeringSnapshot) {
+                // Let the snapshot be registered first, so that this change is made after it and preserves the
+                // item for it.
+                changesInFlight.decrementAndGet();
+
+                while (registeringSnapshot) {
+                    Thread.yield();
+                }
+
+                changesInFlight.incrementAndGet();
+            }
+
+            try {
+                for (var snapshot : liveSnapshots()) {
+                    snapshot.beforeChange(item);
+                }
+            } catch (RuntimeException e) {
+                // The item will not call afterChange, as it never got to make its change.
+                changesInFlight.decrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public void afterChange(Item item) {
+            changesInFlight.decrementAndGet();
+        }
+
+        @Override
+        public void onNameChanged(Item item, String oldName) {
+            update(item, id -> {
+                var name = item.getIdentifier().getName();
+
+                // The name that was indexed last is used instead of the previous name, as the events of
+                // concurrent renames may arrive out of order.
+                nameIndex.remove(id, nameOrder.get(id));
+                nameIndex.add(id, name);
+                nameOrder.put(id, name.toLowerCase());
+            });
+        }
+
+        @Override
+        public void onDescriptionChanged(Item item, String oldDescription) {
+            update(item, id -> {
+                var description = item.getIdentifier().getDescription();
+
+                // As with names, the description that was indexed last is removed, not the previous one.
+                descriptionIndex.remove(id, indexedDescriptions.put(id, description));
+                descriptionIndex.add(id, description);
+            });
+        }
+
+        @Override
+        public void onStockChanged(Item item, long oldStock) {
+            defer(item, true);
+        }
+
+        @Override
+        public void onPriceChanged(Item item, float oldPrice) {
+            defer(item, false);
+        }
+
+        @Override
+        public void onReorderLevelChanged(Item item, long oldReorderLevel) {
+            defer(item, false);
+        }
+
+        @Override
+        public void onCaloriesChanged(FoodItem item, float oldCalories) {
+            defer(item, false);
+        }
+
+        @Override
+        public void onWeightChanged(Item item, float oldWeight) {
+            defer(item, false);
+        }
+
+        @Override
+        public void onVolumeChanged(Item item, float oldVolume) {
+            defer(item, false);
+        }
+
+        @Override
+        public void onMaterialChanged(KitchenwareItem item, String oldMaterial) {
+            refresh(item);
+        }
+
+        /**
+         * Updates the indexes and the storage of this {@link InventoryManager} after the name or description of an
+         * {@link Item} changed.
+         *
+         * @param item The {@link Item}.
+         * @param indexUpdate Updates the indexes, given the ID of the {@link Item}.
+         */
+        private void update(Item item, LongConsumer indexUpdate) {
+            long id = item.getIdentifier().getID();
+            long stamp = lock.writeLock();
+
+            try {
+                // The item may have been removed while the change was being made, and another item may have been
+                // added with its ID since. Removed items no longer have this handler as their listener.
+                if (item.getListener() != this) {
+                    return;
+                }
+
+                if (indexState == IndexState.built) {
+                    if (!nameOrder.contains(id)) {
+                        return;
+                    }
+
+                    indexUpdate.accept(id);
+                }
+
+                version.incrementAndGet();
+
+                if (items.mirrorsItemData()) {
+                    items.refresh(item);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Queues an {@link Item} whose stock, price, reorder level, calories, weight or volume changed, so that
+         * the indexes that depend on them are brought up to date the next time they are read.
+         * <p>
+         * Concurrent changes therefore never wait for each other. Storages that write through are the exception,
+         * as they may outlive the process. Stock changes are written to them under the shared lock, so that
+         * adjustments still do not wait for each other, while any other change is applied right away under the
+         * exclusive lock.
+         * </p>
+         *
+         * @param item The {@link Item}.
+         * @param stockOnly Whether only the stock of the {@link Item} changed.
+         */
+        private void defer(Item item, boolean stockOnly) {
+            if (item.getListener() != this) {
+                return;
+            }
+
+            var state = indexState;
+
+            // Nothing is indexed yet, so only the storage needs to know. Indexes that are built later read the
+            // item after this change.
+            if (state == IndexState.none) {
+                if (stockOnly && items.writesThrough()) {
+                    version.incrementAndGet();
+                    writeStockThrough(item);
+                } else {
+                    refresh(item);
+                }
+
+                return;
+            }
+
+            // The item is queued before the version is bumped, so that a search that reads the bumped version
+            // also finds the item queued.
+            pendingChanges.add(item);
+            version.incrementAndGet();
+
+            // The reorder state may have been built from the item before or after this change, so crossings are
+            // only looked for once it is complete.
+            if (state == IndexState.building) {
+                lock.unlockRead(lock.readLock());
+            }
+
+            reportReorderCrossings(item);
+
+            if (items.writesThrough()) {
+                if (!stockOnly) {
+                    long stamp = lock.writeLock();
+
+                    try {
+                        applyPendingChanges();
+                    } finally {
+                        lock.unlockWrite(stamp);
+                    }
+
+                    return;
+                }
+
+                writeStockThrough(item);
+            }
+
+            if (pendingChanges.size() >= maxPendingChanges) {
+                // Keep the queue short without waiting, as whoever holds the lock will apply it soon enough.
+                long stamp = lock.tryWriteLock();
+
+                if (stamp != 0) {
+                    try {
+                        applyPendingChanges();
+                    } finally {
+                        lock.unlockWrite(stamp);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Writes the stock of an {@link Item} to a storage that {@link ItemStorage#writesThrough() writes through}.
+         * The shared lock keeps the storage from being restructured meanwhile.
+         *
+         * @param item The {@link Item}.
+         */
+        private void writeStockThrough(Item item) {
+            long stamp = lock.readLock();
+
+            try {
+                // The item may have been removed since it changed, which happens under the exclusive lock.
+                if (item.getListener() == this) {
+                    items.refreshStock(item);
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Reports whether an {@link Item} crossed its reorder level since it was last reported.
+         * <p>
+         * A crossing is claimed by adding the {@link Item} to, or removing it from, the set of {@link Item}s that
+         * are below their reorder level, so every crossing is reported exactly once even if several threads change
+         * the {@link Item} at the same time. The {@link Item} is checked again after every crossing, as it may
+         * have crossed back before the set was changed.
+         * </p>
+         *
+         * @param item The {@link Item}.
+         */
+        private void reportReorderCrossings(Item item) {
+            while (true) {
+                boolean below = item.isBelowReorderLevel();
+
+                if (below == belowReorderLevel.contains(item)) {
+                    return;
+                }
+
+                // Another thread claimed the crossing first, but the item may have crossed back since.
+                if (below ? !belowReorderLevel.add(item) : !belowReorderLevel.remove(item)) {
+                    continue;
+                }
+
+                // The item may have been removed in the meantime, in which case it must not be left in the set.
+                if (item.getListener() != this) {
+                    belowReorderLevel.remove(item);
+                    return;
+                }
+
+                for (var listener : reorderListeners) {
+                    if (below) {
+                        listener.onBelowReorderLevel(item);
+                    } else {
+                        listener.onRestocked(item);
+                    }
+                }
+            }
+        }
+
+        private void refresh(Item item) {
+            version.incrementAndGet();
+
+            // Storages that read straight from the items do not need to be told about changes, which keeps
+            // such changes lock-free for them.
+            if (!items.mirrorsItemData()) {
+                return;
+            }
+
+            long stamp = lock.writeLock();
+
+            try {
+                if (item.getListener() == this) {
+                    items.refresh(item);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
     }
 }
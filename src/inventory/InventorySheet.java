@@ -1,7 +1,6 @@
 package src.inventory;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.List;
 
 import src.item.Item;
@@ -9,23 +8,30 @@ import src.item.Item;
 /**
  * Represents an inventory sheet containing the state of an {@link InventoryManager}
  * at the time when this {@link InventorySheet} was created.
+ * <p>
+ * The sheet reads from an {@link InventorySnapshot}, so creating one does not copy the {@link Item}s.
+ * </p>
  */
 public class InventorySheet {
     private final long creationTime;
-    private final ArrayList<Item> items;
+    private final InventorySnapshot snapshot;
 
-    public InventorySheet(ArrayList<Item> items) {
+    public InventorySheet(InventorySnapshot snapshot) {
         creationTime = System.currentTimeMillis();
 
-        this.items = items;
+        this.snapshot = snapshot;
     }
 
     public long getCreationTime() {
         return creationTime;
     }
 
+    /**
+     * Gets the {@link Item}s in this {@link InventorySheet}, sorted by their ID. The {@link Item}s are copied on
+     * every call.
+     */
     public List<Item> getItems() {
-        return items;
+        return snapshot.copyItems();
     }
 
     public void print() {
@@ -34,8 +40,6 @@ public class InventorySheet {
         System.out.printf("Inventory report as of %s UTC\n\n", sdf.format(creationTime));
         System.out.printf("ID\tName%s\tType%s\tStock\tPrice (RM)\n", " ".repeat(50), " ".repeat(16));
 
-        for (var item : items) {
-            System.out.println(item.generateTableRow());
-        }
+        snapshot.forEach(item -> System.out.println(item.generateTableRow()));
     }
 }
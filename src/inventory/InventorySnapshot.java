@@ -0,0 +1,223 @@
+package src.inventory;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import src.inventory.index.LongPostingList;
+import src.inventory.storage.ItemStorage;
+import src.inventory.storage.LongHashMap;
+import src.item.Item;
+
+/**
+ * A point-in-time view of the {@link Item}s in an {@link InventoryManager}.
+ * <p>
+ * Taking a snapshot copies nothing. Instead, the {@link InventoryManager} preserves a copy of an {@link Item} the
+ * first time it changes or is removed after the snapshot was taken, and remembers which {@link Item}s were added
+ * since. Reading the snapshot overlays those copies on the current {@link Item}s, so a snapshot only costs memory
+ * for the {@link Item}s that change while it is in use.
+ * </p>
+ * <p>
+ * The {@link InventoryManager} stops preserving {@link Item}s for a snapshot once it has been garbage collected.
+ * </p>
+ */
+public final class InventorySnapshot {
+    private static final int batchSize = 256;
+
+    private final StampedLock lock;
+    private final ItemStorage items;
+    private final int size;
+
+    // Everything below is guarded by the monitor of this snapshot.
+    // Copies of items as they were when this snapshot was taken, for items that changed or were removed since.
+    private final LongHashMap<Item> preserved = new LongHashMap<>();
+    // Items that were added since this snapshot was taken, and are therefore not part of it.
+    private final LongPostingList added = new LongPostingList();
+    // Items that were part of this snapshot, but are no longer in the storage.
+    private final LongPostingList removed = new LongPostingList();
+
+    /**
+     * @param lock The lock of the {@link InventoryManager}, which the caller holds.
+     * @param items The storage of the {@link InventoryManager}.
+     */
+    InventorySnapshot(StampedLock lock, ItemStorage items) {
+        this.lock = lock;
+        this.items = items;
+        size = items.size();
+    }
+
+    /**
+     * Gets the amount of {@link Item}s in this {@link InventorySnapshot}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether this {@link InventorySnapshot} has no {@link Item}s.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Performs an action on every {@link Item} in this {@link InventorySnapshot}, in ID order.
+     * <p>
+     * The {@link Item}s that are passed to the action may be the live {@link Item}s of the
+     * {@link InventoryManager}, which are kept from changing while the action runs. The action must therefore
+     * neither keep nor change them, and must not change the {@link InventoryManager}. Use {@link #copyItems()}
+     * to obtain {@link Item}s that can be kept.
+     * </p>
+     *
+     * @param action The action.
+     */
+    public void forEach(Consumer<? super Item> action) {
+        var ids = new ArrayList<Long>(batchSize);
+        var batch = new ArrayList<Item>(batchSize);
+        long nextId = Long.MIN_VALUE;
+        boolean exhausted = false;
+
+        while (!exhausted) {
+            ids.clear();
+            batch.clear();
+            exhausted = fill(nextId, ids, batch);
+
+            for (int i = 0; i < ids.size(); ++i) {
+                synchronized (this) {
+                    var item = preserved.get(ids.get(i));
+
+                    action.accept(item != null ? item : batch.get(i));
+                }
+            }
+
+            if (!ids.isEmpty()) {
+                long lastId = ids.get(ids.size() - 1);
+
+                exhausted |= lastId == Long.MAX_VALUE;
+                nextId = lastId + 1;
+            }
+        }
+    }
+
+    /**
+     * Copies the {@link Item}s in this {@link InventorySnapshot}.
+     *
+     * @return Deep copies of the {@link Item}s, sorted by their ID.
+     */
+    public ArrayList<Item> copyItems() {
+        var copy = new ArrayList<Item>(size);
+
+        forEach(item -> copy.add(item.clone()));
+
+        return copy;
+    }
+
+    /**
+     * Looks up the next batch of {@link Item}s, merging the {@link Item}s in the storage with those that were
+     * removed from it since this {@link InventorySnapshot} was taken.
+     *
+     * @param fromId The ID to start at.
+     * @param ids The list to add the IDs of the batch to.
+     * @param batch The list to add the {@link Item}s in the storage to, <code>null</code> for removed {@link Item}s.
+     * @return Whether this was the last batch.
+     */
+    private boolean fill(long fromId, ArrayList<Long> ids, ArrayList<Item> batch) {
+        long stamp = lock.readLock();
+
+        try {
+            synchronized (this) {
+                var stored = new ArrayList<Item>(batchSize);
+                var iterator = items.iterator(fromId);
+                boolean exhausted = true;
+
+                while (iterator.hasNext()) {
+                    if (stored.size() == batchSize) {
+                        exhausted = false;
+                        break;
+                    }
+
+                    var item = iterator.next();
+
+                    if (!added.contains(item.getIdentifier().getID())) {
+                        stored.add(item);
+                    }
+                }
+
+                // Removed items are only merged up to the last stored item, unless the storage has been exhausted.
+                long lastId = exhausted || stored.isEmpty() ?
+                        Long.MAX_VALUE :
+                        stored.get(stored.size() - 1).getIdentifier().getID();
+                int index = removed.ceilingIndex(fromId);
+
+                for (var item : stored) {
+                    long id = item.getIdentifier().getID();
+
+                    for (; index < removed.size() && removed.get(index) < id; ++index) {
+                        ids.add(removed.get(index));
+                        batch.add(null);
+                    }
+
+                    ids.add(id);
+                    batch.add(item);
+                }
+
+                for (; index < removed.size() && removed.get(index) <= lastId; ++index) {
+                    ids.add(removed.get(index));
+                    batch.add(null);
+                }
+
+                return exhausted;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Preserves an {@link Item} before it changes, if it is part of this {@link InventorySnapshot} and has not
+     * been preserved yet.
+     *
+     * @param item The {@link Item}.
+     */
+    synchronized void beforeChange(Item item) {
+        long id = item.getIdentifier().getID();
+
+        if (!preserved.containsKey(id) && !added.contains(id)) {
+            preserved.put(id, item.clone());
+        }
+    }
+
+    /**
+     * Records that an {@link Item} was added to the {@link InventoryManager}. The caller must hold the write lock.
+     *
+     * @param id The ID of the {@link Item}.
+     */
+    synchronized void onAdded(long id) {
+        // An item that was part of this snapshot may be added back after it was removed, in which case it is
+        // still read from its preserved copy.
+        if (!removed.remove(id)) {
+            added.add(id);
+        }
+    }
+
+    /**
+     * Records that an {@link Item} was removed from the {@link InventoryManager}. The caller must hold the write
+     * lock.
+     *
+     * @param item The {@link Item}.
+     */
+    synchronized void onRemoved(Item item) {
+        long id = item.getIdentifier().getID();
+
+        if (added.remove(id)) {
+            preserved.remove(id);
+            return;
+        }
+
+        if (!preserved.containsKey(id)) {
+            preserved.put(id, item.clone());
+        }
+
+        removed.add(id);
+    }
+}
@@ -0,0 +1,68 @@
+package src.inventory;
+
+import java.math.BigDecimal;
+
+import src.item.Item;
+
+/**
+ * The totals of the {@link Item}s in an {@link InventoryManager}, or of the {@link Item}s of one type.
+ * <p>
+ * The value of the stock is kept in whole cents, so adding and removing {@link Item}s any amount of times never
+ * makes it drift from the value of the {@link Item}s that remain.
+ * </p>
+ */
+public final class InventoryTotals {
+    private final long itemCount;
+    private final long totalStock;
+    private final long totalValueInCents;
+
+    /**
+     * @param itemCount The amount of {@link Item}s.
+     * @param totalStock The total stock of the {@link Item}s.
+     * @param totalValueInCents The total value of the stock of the {@link Item}s, in cents.
+     */
+    public InventoryTotals(long itemCount, long totalStock, long totalValueInCents) {
+        this.itemCount = itemCount;
+        this.totalStock = totalStock;
+        this.totalValueInCents = totalValueInCents;
+    }
+
+    /**
+     * Gets the value of a stock of an {@link Item} in cents, as it is counted towards the totals.
+     * <p>
+     * The price is rounded to whole cents first, which is how prices are displayed and saved.
+     * </p>
+     *
+     * @param price The price of the {@link Item}.
+     * @param stock The stock of the {@link Item}.
+     * @return The value in cents.
+     */
+    public static long valueInCents(float price, long stock) {
+        return Math.round(price * 100d) * stock;
+    }
+
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalStock() {
+        return totalStock;
+    }
+
+    public long getTotalValueInCents() {
+        return totalValueInCents;
+    }
+
+    /**
+     * Gets the total value of the stock of the {@link Item}s in RM.
+     */
+    public BigDecimal getTotalValue() {
+        return BigDecimal.valueOf(totalValueInCents, 2);
+    }
+
+    public void print() {
+        System.out.printf("Items: %d\n", itemCount);
+        System.out.printf("Total stock: %d\n", totalStock);
+        System.out.printf("Total value: RM%s\n", getTotalValue());
+    }
+}
@@ -0,0 +1,28 @@
+package src.inventory;
+
+import src.item.Item;
+
+/**
+ * A listener that is notified when an {@link Item} in an {@link InventoryManager} crosses its reorder level.
+ * <p>
+ * Listeners are called on the thread that made the change, after the {@link InventoryManager} has released its
+ * lock, so they may read from the {@link InventoryManager}.
+ * </p>
+ */
+public interface ReorderListener {
+    /**
+     * Called after the stock of an {@link Item} fell below its reorder level, or its reorder level was raised
+     * above its stock.
+     *
+     * @param item The {@link Item}.
+     */
+    default void onBelowReorderLevel(Item item) {}
+
+    /**
+     * Called after the stock of an {@link Item} that was below its reorder level reached it again, or its reorder
+     * level was lowered to its stock or below.
+     *
+     * @param item The {@link Item}.
+     */
+    default void onRestocked(Item item) {}
+}
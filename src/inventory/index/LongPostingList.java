@@ -0,0 +1,176 @@
+package src.inventory.index;
+
+import java.util.Arrays;
+
+/**
+ * A sorted list of distinct <code>long</code> IDs, used as a posting list of an inverted index.
+ * <p>
+ * IDs are usually handed out incrementally, so most additions are appends. Anything else is inserted with
+ * a binary search and a shift of the IDs after it.
+ * </p>
+ */
+public class LongPostingList {
+    private long[] ids = new long[4];
+    private int size;
+
+    /**
+     * Gets the amount of IDs in this {@link LongPostingList}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether this {@link LongPostingList} has no IDs.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the ID at an index.
+     *
+     * @param index The index.
+     * @return The ID.
+     */
+    public long get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Whether this {@link LongPostingList} contains an ID.
+     *
+     * @param id The ID.
+     */
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Gets the index of the lowest ID that is not below an ID.
+     *
+     * @param id The ID.
+     * @return The index, {@link #size()} if every ID is below it.
+     */
+    public int ceilingIndex(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Adds an ID to this {@link LongPostingList}.
+     *
+     * @param id The ID.
+     * @return Whether the ID was added. An ID will not be added if it already exists.
+     */
+    public boolean add(long id) {
+        int index = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+
+        if (index >= 0) {
+            return false;
+        }
+
+        index = -index - 1;
+
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        ++size;
+
+        return true;
+    }
+
+    /**
+     * Removes an ID from this {@link LongPostingList}.
+     *
+     * @param id The ID.
+     * @return Whether the ID was removed.
+     */
+    public boolean remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        --size;
+
+        return true;
+    }
+
+    /**
+     * Copies the IDs of this {@link LongPostingList} into an array.
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Intersects multiple {@link LongPostingList}s.
+     * <p>
+     * The shortest list is walked, and each of its IDs is looked up in the other lists with a binary search,
+     * so the cost is bound by the shortest list rather than the longest.
+     * </p>
+     *
+     * @param lists The {@link LongPostingList}s to intersect.
+     * @return The IDs that appear in every list, in ascending order.
+     */
+    public static long[] intersect(LongPostingList... lists) {
+        if (lists.length == 0) {
+            return new long[0];
+        }
+
+        var sorted = lists.clone();
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.size, b.size));
+
+        var shortest = sorted[0];
+        var result = new long[shortest.size];
+        int count = 0;
+
+        for (int i = 0; i < shortest.size; ++i) {
+            long id = shortest.ids[i];
+            boolean inAll = true;
+
+            for (int j = 1; j < sorted.length && inAll; ++j) {
+                inAll = sorted[j].contains(id);
+            }
+
+            if (inAll) {
+                result[count++] = id;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersects two sorted arrays of IDs in a single merging pass.
+     *
+     * @param first The first IDs, in ascending order.
+     * @param second The second IDs, in ascending order.
+     * @return The IDs that appear in both arrays, in ascending order.
+     */
+    public static long[] intersect(long[] first, long[] second) {
+        var result = new long[Math.min(first.length, second.length)];
+        int count = 0;
+
+        for (int i = 0, j = 0; i < first.length && j < second.length;) {
+            if (first[i] < second[j]) {
+                ++i;
+            } else if (first[i] > second[j]) {
+                ++j;
+            } else {
+                result[count++] = first[i];
+                ++i;
+                ++j;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,499 @@
+package src.inventory.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import src.inventory.storage.LongHashMap;
+
+/**
+ * An index that keeps IDs sorted by a key, so that they can be listed in key order without sorting.
+ * <p>
+ * Entries are ordered by their key and then by their ID, so IDs that share a key are listed in ascending order
+ * in both directions. They are kept in a list of small sorted blocks, each holding its keys and its IDs in a pair
+ * of arrays. An ID is found with a binary search over the last entries of the blocks and then one within its
+ * block, so adding, removing, and repositioning an ID takes logarithmic time plus shifting part of a single block.
+ * No object is allocated per ID besides its key.
+ * </p>
+ * <p>
+ * The key that each ID was last indexed with is remembered, so an ID can be repositioned from just its new key.
+ * </p>
+ *
+ * @param <K> The type of the keys.
+ */
+public class SortedIndex<K extends Comparable<K>> {
+    private static final int maxBlockSize = 128;
+    private static final int minBlockSize = maxBlockSize / 4;
+    // Blocks that are built in bulk leave room for later additions, so that those do not split them right away.
+    private static final int bulkBlockSize = maxBlockSize * 3 / 4;
+
+    // Every block is non-empty, and the last entry of each block comes before the first entry of the next.
+    private final ArrayList<Block<K>> blocks = new ArrayList<>();
+    private final LongHashMap<K> keys = new LongHashMap<>();
+
+    /**
+     * Gets the amount of IDs in this {@link SortedIndex}.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Whether this {@link SortedIndex} contains an ID.
+     *
+     * @param id The ID.
+     */
+    public boolean contains(long id) {
+        return keys.containsKey(id);
+    }
+
+    /**
+     * Gets the key that an ID is indexed with.
+     *
+     * @param id The ID.
+     * @return The key, <code>null</code> if the ID is not in this {@link SortedIndex}.
+     */
+    public K get(long id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Adds an ID to this {@link SortedIndex}, or repositions it if it already exists.
+     *
+     * @param id The ID.
+     * @param key The key of the ID.
+     */
+    public void put(long id, K key) {
+        var previous = keys.put(id, key);
+
+        if (previous != null) {
+            if (previous.compareTo(key) == 0) {
+                return;
+            }
+
+            delete(previous, id);
+        }
+
+        insert(key, id);
+    }
+
+    /**
+     * Adds multiple IDs to this {@link SortedIndex}.
+     * <p>
+     * The batch is sorted once, and when it is large compared to this {@link SortedIndex}, merged with the
+     * existing entries into new blocks in a single pass. This is considerably cheaper than adding a large amount
+     * of IDs one by one. Sorting the batch takes close to linear time if the values are already sorted by their
+     * key and then by their ID, which callers may be able to arrange more cheaply.
+     * </p>
+     *
+     * @param values The values to add. Their IDs must be distinct and not be in this {@link SortedIndex} yet.
+     * @param idExtractor Extracts the ID of a value.
+     * @param keyExtractor Extracts the key of a value.
+     * @param <T> The type of the values.
+     */
+    public <T> void putAll(List<T> values, ToLongFunction<T> idExtractor, Function<T, K> keyExtractor) {
+        var batch = new ArrayList<Entry<K>>(values.size());
+
+        for (var value : values) {
+            var entry = new Entry<>(keyExtractor.apply(value), idExtractor.applyAsLong(value));
+
+            keys.put(entry.id(), entry.key());
+            batch.add(entry);
+        }
+
+        int existing = keys.size() - batch.size();
+
+        // Merging rewrites every existing entry, so it only pays off once inserting the batch one by one would
+        // take longer, i.e. when the batch size times the height of the index exceeds the size of the index.
+        if (batch.size() * (64 - Long.numberOfLeadingZeros(existing)) < existing) {
+            for (var entry : batch) {
+                insert(entry.key(), entry.id());
+            }
+
+            return;
+        }
+
+        // Keys are extracted exactly once, so the batch is sorted by the keys it will be indexed with even if a
+        // value changes in the meantime.
+        batch.sort(null);
+
+        var merged = new ArrayList<Block<K>>(blocks.size() + batch.size() / bulkBlockSize + 1);
+        var target = new Block<K>();
+        int next = 0;
+
+        for (var block : blocks) {
+            for (int i = 0; i < block.size; ++i) {
+                var key = block.key(i);
+                long id = block.ids[i];
+
+                for (; next < batch.size() && batch.get(next).compareTo(key, id) < 0; ++next) {
+                    target = append(merged, target, batch.get(next).key(), batch.get(next).id());
+                }
+
+                target = append(merged, target, key, id);
+            }
+        }
+
+        for (; next < batch.size(); ++next) {
+            target = append(merged, target, batch.get(next).key(), batch.get(next).id());
+        }
+
+        if (target.size > 0) {
+            merged.add(target);
+        }
+
+        blocks.clear();
+        blocks.addAll(merged);
+    }
+
+    /**
+     * Removes an ID from this {@link SortedIndex}.
+     *
+     * @param id The ID.
+     * @return Whether the ID was removed.
+     */
+    public boolean remove(long id) {
+        var key = keys.remove(id);
+
+        if (key == null) {
+            return false;
+        }
+
+        delete(key, id);
+
+        return true;
+    }
+
+    /**
+     * Removes all IDs from this {@link SortedIndex}.
+     */
+    public void clear() {
+        blocks.clear();
+        keys.clear();
+    }
+
+    /**
+     * Lists the IDs in this {@link SortedIndex} in key order.
+     *
+     * @param descending Whether to list the IDs in descending key order. IDs that share a key are still listed
+     * in ascending order.
+     * @return The IDs.
+     */
+    public long[] ids(boolean descending) {
+        var ids = new long[keys.size()];
+        int count = 0;
+
+        if (!descending) {
+            for (var block : blocks) {
+                System.arraycopy(block.ids, 0, ids, count, block.size);
+                count += block.size;
+            }
+
+            return ids;
+        }
+
+        // Walking backwards lists IDs that share a key in descending order, so every such run is flipped.
+        int runStart = 0;
+        K runKey = null;
+
+        for (int b = blocks.size() - 1; b >= 0; --b) {
+            var block = blocks.get(b);
+
+            for (int i = block.size - 1; i >= 0; --i) {
+                var key = block.key(i);
+
+                if (runKey == null || runKey.compareTo(key) != 0) {
+                    reverse(ids, runStart, count);
+                    runStart = count;
+                    runKey = key;
+                }
+
+                ids[count++] = block.ids[i];
+            }
+        }
+
+        reverse(ids, runStart, count);
+
+        return ids;
+    }
+
+    /**
+     * Lists the IDs in this {@link SortedIndex} with the lowest keys.
+     * <p>
+     * Only the listed entries are visited, so this takes time proportional to the amount of IDs listed.
+     * </p>
+     *
+     * @param count The maximum amount of IDs to list.
+     * @return The IDs in ascending key order.
+     */
+    public long[] first(int count) {
+        var ids = new long[Math.min(count, keys.size())];
+        int listed = 0;
+
+        for (int b = 0; listed < ids.length; ++b) {
+            var block = blocks.get(b);
+            int length = Math.min(block.size, ids.length - listed);
+
+            System.arraycopy(block.ids, 0, ids, listed, length);
+            listed += length;
+        }
+
+        return ids;
+    }
+
+    /**
+     * Lists the IDs in this {@link SortedIndex} whose key is within a range.
+     * <p>
+     * Only the entries within the range are visited, so a narrow range is cheap no matter how large this
+     * {@link SortedIndex} is. The walk is abandoned once it exceeds a limit, for callers that would rather scan
+     * their data than process a wide range.
+     * </p>
+     *
+     * @param from The lowest key, inclusive.
+     * @param to The highest key, inclusive.
+     * @param limit The maximum amount of IDs to list.
+     * @return The IDs in ascending order, <code>null</code> if more than <code>limit</code> IDs are within the range.
+     */
+    public long[] ids(K from, K to, int limit) {
+        if (from.compareTo(to) > 0 || blocks.isEmpty()) {
+            return new long[0];
+        }
+
+        var ids = new long[Math.min(limit, 16)];
+        int count = 0;
+        int b = blockOf(from, Long.MIN_VALUE);
+        int i = blocks.get(b).indexOf(from, Long.MIN_VALUE);
+
+        for (i = i >= 0 ? i : -i - 1; b < blocks.size(); ++b, i = 0) {
+            var block = blocks.get(b);
+
+            for (; i < block.size; ++i) {
+                if (block.key(i).compareTo(to) > 0) {
+                    return sorted(ids, count);
+                }
+
+                if (count == limit) {
+                    return null;
+                }
+
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, Math.min(limit, count * 2));
+                }
+
+                ids[count++] = block.ids[i];
+            }
+        }
+
+        return sorted(ids, count);
+    }
+
+    private static long[] sorted(long[] ids, int count) {
+        ids = Arrays.copyOf(ids, count);
+        Arrays.sort(ids);
+
+        return ids;
+    }
+
+    /**
+     * Gets the block that an entry belongs in: the first block whose last entry does not come before it, or the
+     * last block if there is none. There must be at least one block.
+     *
+     * @param key The key of the entry.
+     * @param id The ID of the entry.
+     * @return The index of the block.
+     */
+    private int blockOf(K key, long id) {
+        int low = 0;
+        int high = blocks.size() - 1;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            var block = blocks.get(mid);
+
+            if (block.compare(block.size - 1, key, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private void insert(K key, long id) {
+        if (blocks.isEmpty()) {
+            blocks.add(new Block<>());
+        }
+
+        int b = blockOf(key, id);
+        var block = blocks.get(b);
+
+        if (block.size == maxBlockSize) {
+            var right = block.split();
+
+            blocks.add(b + 1, right);
+
+            if (block.compare(block.size - 1, key, id) < 0) {
+                block = right;
+            }
+        }
+
+        block.insert(-block.indexOf(key, id) - 1, key, id);
+    }
+
+    private void delete(K key, long id) {
+        int b = blockOf(key, id);
+        var block = blocks.get(b);
+        int i = block.indexOf(key, id);
+
+        if (i < 0) {
+            return;
+        }
+
+        block.remove(i);
+
+        if (block.size == 0) {
+            blocks.remove(b);
+        } else if (block.size < minBlockSize) {
+            // Merge sparse blocks with a neighbour, so that removals never leave many nearly empty blocks behind.
+            if (b + 1 < blocks.size() && block.size + blocks.get(b + 1).size <= maxBlockSize) {
+                block.appendAll(blocks.remove(b + 1));
+            } else if (b > 0 && blocks.get(b - 1).size + block.size <= maxBlockSize) {
+                blocks.get(b - 1).appendAll(blocks.remove(b));
+            }
+        }
+    }
+
+    /**
+     * Appends an entry while building blocks in bulk.
+     *
+     * @param blocks The blocks that are complete.
+     * @param target The block being filled.
+     * @return The block to fill next.
+     */
+    private static <K extends Comparable<K>> Block<K> append(List<Block<K>> blocks, Block<K> target, K key, long id) {
+        if (target.size == bulkBlockSize) {
+            blocks.add(target);
+            target = new Block<>();
+        }
+
+        target.insert(target.size, key, id);
+
+        return target;
+    }
+
+    private static void reverse(long[] ids, int from, int to) {
+        for (int i = from, j = to - 1; i < j; ++i, --j) {
+            long temp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = temp;
+        }
+    }
+
+    /**
+     * A run of consecutive entries, sorted by their key and then by their ID.
+     */
+    private static final class Block<K extends Comparable<K>> {
+        private final Object[] keys = new Object[maxBlockSize];
+        private final long[] ids = new long[maxBlockSize];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        K key(int index) {
+            return (K) keys[index];
+        }
+
+        /**
+         * Compares the entry at an index with another entry.
+         */
+        int compare(int index, K key, long id) {
+            int comparison = key(index).compareTo(key);
+
+            return comparison != 0 ? comparison : Long.compare(ids[index], id);
+        }
+
+        /**
+         * Gets the index of an entry using the binary search algorithm.
+         *
+         * @return The index of the entry if found, otherwise <code>-(insertion index) - 1</code>.
+         */
+        int indexOf(K key, long id) {
+            int low = 0;
+            int high = size - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int comparison = compare(mid, key, id);
+
+                if (comparison < 0) {
+                    low = mid + 1;
+                } else if (comparison > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+
+            return -low - 1;
+        }
+
+        void insert(int index, K key, long id) {
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            keys[index] = key;
+            ids[index] = id;
+            ++size;
+        }
+
+        void remove(int index) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            keys[--size] = null;
+        }
+
+        /**
+         * Moves the upper half of the entries of this full block into a new block.
+         *
+         * @return The new block.
+         */
+        Block<K> split() {
+            var right = new Block<K>();
+            int half = size / 2;
+
+            right.size = size - half;
+            System.arraycopy(keys, half, right.keys, 0, right.size);
+            System.arraycopy(ids, half, right.ids, 0, right.size);
+            Arrays.fill(keys, half, size, null);
+            size = half;
+
+            return right;
+        }
+
+        /**
+         * Moves all entries of the following block to the end of this one.
+         */
+        void appendAll(Block<K> next) {
+            System.arraycopy(next.keys, 0, keys, size, next.size);
+            System.arraycopy(next.ids, 0, ids, size, next.size);
+            size += next.size;
+        }
+    }
+
+    /**
+     * An entry of a batch that is being added.
+     */
+    private record Entry<K extends Comparable<K>>(K key, long id) implements Comparable<Entry<K>> {
+        @Override
+        public int compareTo(Entry<K> other) {
+            return compareTo(other.key, other.id);
+        }
+
+        int compareTo(K key, long id) {
+            int comparison = this.key.compareTo(key);
+
+            return comparison != 0 ? comparison : Long.compare(this.id, id);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package src.inventory.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * An inverted index that maps every word (term) of a text to the IDs whose text contains it.
+ * <p>
+ * Texts are split into terms at every character that is not a letter or a digit, and terms are normalized to
+ * lower case. A query is split the same way and matches the IDs whose text contains every term of the query.
+ * </p>
+ * <p>
+ * Matches can be ranked with {@link #score(String, List)}, which weights how often each query term appears in a
+ * text by how rare the term is among all texts (TF-IDF).
+ * </p>
+ */
+public class TermIndex {
+    private final HashMap<String, LongPostingList> postings = new HashMap<>();
+    private int documentCount;
+
+    /**
+     * Adds the text of an ID to this {@link TermIndex}.
+     *
+     * @param id The ID.
+     * @param text The text.
+     */
+    public void add(long id, String text) {
+        for (var term : uniqueTerms(text)) {
+            postings.computeIfAbsent(term, k -> new LongPostingList()).add(id);
+        }
+
+        ++documentCount;
+    }
+
+    /**
+     * Removes the text of an ID from this {@link TermIndex}.
+     *
+     * @param id The ID.
+     * @param text The text that was added for the ID.
+     */
+    public void remove(long id, String text) {
+        for (var term : uniqueTerms(text)) {
+            var posting = postings.get(term);
+
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+
+        --documentCount;
+    }
+
+    /**
+     * Removes all texts from this {@link TermIndex}.
+     */
+    public void clear() {
+        postings.clear();
+        documentCount = 0;
+    }
+
+    /**
+     * Finds the IDs whose text contains every term of a query.
+     *
+     * @param terms The terms of the query, as returned by {@link #uniqueTerms(String)}.
+     * @return The IDs in ascending order.
+     */
+    public long[] find(List<String> terms) {
+        if (terms.isEmpty()) {
+            return new long[0];
+        }
+
+        var lists = new LongPostingList[terms.size()];
+
+        for (int i = 0; i < lists.length; ++i) {
+            lists[i] = postings.get(terms.get(i));
+
+            if (lists[i] == null) {
+                // No text contains this term, so no text can contain every term.
+                return new long[0];
+            }
+        }
+
+        return LongPostingList.intersect(lists);
+    }
+
+    /**
+     * Scores how relevant a text is to a query.
+     *
+     * @param text The text.
+     * @param terms The terms of the query, as returned by {@link #uniqueTerms(String)}.
+     * @return The sum of the frequency of each term in the text, weighted by the inverse document frequency of
+     * the term. Higher is more relevant.
+     */
+    public double score(String text, List<String> terms) {
+        var frequencies = new int[terms.size()];
+
+        for (var term : terms(text)) {
+            int index = terms.indexOf(term);
+
+            if (index >= 0) {
+                ++frequencies[index];
+            }
+        }
+
+        double score = 0;
+
+        for (int i = 0; i < frequencies.length; ++i) {
+            var posting = postings.get(terms.get(i));
+            int documentFrequency = posting != null ? posting.size() : 0;
+
+            score += frequencies[i] * Math.log(1 + (double) documentCount / (1 + documentFrequency));
+        }
+
+        return score;
+    }
+
+    /**
+     * Splits a text into its distinct terms.
+     *
+     * @param text The text.
+     * @return The distinct terms, in order of their first appearance.
+     */
+    public static List<String> uniqueTerms(String text) {
+        return new ArrayList<>(new LinkedHashSet<>(terms(text)));
+    }
+
+    /**
+     * Splits a text into its terms.
+     *
+     * @param text The text.
+     * @return The terms, in order of appearance.
+     */
+    private static List<String> terms(String text) {
+        var terms = new ArrayList<String>();
+        int start = -1;
+
+        for (int i = 0; i <= text.length(); ++i) {
+            boolean partOfTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+}
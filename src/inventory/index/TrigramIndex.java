@@ -0,0 +1,106 @@
+package src.inventory.index;
+
+import java.util.ArrayList;
+
+import src.inventory.storage.LongHashMap;
+
+/**
+ * An inverted index that maps every trigram (sequence of three characters) of a text to the IDs whose text
+ * contains it, used to answer substring queries without scanning every text.
+ * <p>
+ * Texts are normalized to lower case before being split into trigrams. A substring query is answered by
+ * intersecting the posting lists of the trigrams of the query, which yields a small set of candidates that
+ * contain every trigram of the query. As containing every trigram does not guarantee containing the query
+ * itself, candidates still need to be verified by the caller.
+ * </p>
+ */
+public class TrigramIndex {
+    private final LongHashMap<LongPostingList> postings = new LongHashMap<>();
+
+    /**
+     * Adds the text of an ID to this {@link TrigramIndex}.
+     *
+     * @param id The ID.
+     * @param text The text.
+     */
+    public void add(long id, String text) {
+        var normalized = normalize(text);
+
+        for (int i = 0; i + 3 <= normalized.length(); ++i) {
+            long trigram = trigram(normalized, i);
+            var posting = postings.get(trigram);
+
+            if (posting == null) {
+                posting = new LongPostingList();
+                postings.put(trigram, posting);
+            }
+
+            // A trigram that appears several times in the text is only added once.
+            posting.add(id);
+        }
+    }
+
+    /**
+     * Removes the text of an ID from this {@link TrigramIndex}.
+     *
+     * @param id The ID.
+     * @param text The text that was added for the ID.
+     */
+    public void remove(long id, String text) {
+        var normalized = normalize(text);
+
+        for (int i = 0; i + 3 <= normalized.length(); ++i) {
+            long trigram = trigram(normalized, i);
+            var posting = postings.get(trigram);
+
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Removes all texts from this {@link TrigramIndex}.
+     */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Finds the IDs whose text may contain a query.
+     *
+     * @param query The query.
+     * @return The candidate IDs in ascending order, which still need to be verified. <code>null</code> if the
+     * query is shorter than a trigram, in which case this {@link TrigramIndex} cannot narrow the candidates down.
+     */
+    public long[] find(String query) {
+        var normalized = normalize(query);
+
+        if (normalized.length() < 3) {
+            return null;
+        }
+
+        var lists = new ArrayList<LongPostingList>(normalized.length() - 2);
+
+        for (int i = 0; i + 3 <= normalized.length(); ++i) {
+            var posting = postings.get(trigram(normalized, i));
+
+            if (posting == null) {
+                // No text contains this trigram, so no text can contain the query.
+                return new long[0];
+            }
+
+            lists.add(posting);
+        }
+
+        return LongPostingList.intersect(lists.toArray(new LongPostingList[0]));
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase();
+    }
+
+    private static long trigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+}
@@ -0,0 +1,33 @@
+package src.inventory.search;
+
+import src.inventory.InventoryManager;
+
+/**
+ * Available ways to execute a search.
+ */
+public enum ExecutionMode {
+    /**
+     * Execute searches in parallel once they are large enough to benefit from it. When set on an
+     * {@link InventorySearchQuery}, the {@link ExecutionMode} of the {@link InventoryManager} is used instead.
+     */
+    automatic,
+
+    /**
+     * Always execute searches on the calling thread.
+     */
+    sequential,
+
+    /**
+     * Always split searches across the common fork/join pool.
+     */
+    parallel;
+
+    @Override
+    public String toString() {
+        return switch (this) {
+            case automatic -> "Automatic";
+            case sequential -> "Sequential";
+            case parallel -> "Parallel";
+        };
+    }
+}
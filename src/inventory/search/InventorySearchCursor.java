@@ -0,0 +1,61 @@
+package src.inventory.search;
+
+import java.util.Objects;
+
+/**
+ * A position in the results of a search, used to continue the search right after it.
+ * <p>
+ * A cursor remembers the sort key and the ID of the last result it was created from rather than an index, so a
+ * page that follows it stays stable even if results in front of it were added or removed in the meantime. A
+ * cursor is only valid for searches with the same {@link ItemSortMethod}.
+ * </p>
+ */
+public final class InventorySearchCursor {
+    private final ItemSortMethod sortMethod;
+    private final long key;
+    private final String name;
+    private final long id;
+
+    InventorySearchCursor(ItemSortMethod sortMethod, long key, String name, long id) {
+        this.sortMethod = sortMethod;
+        this.key = key;
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Gets the {@link ItemSortMethod} of the search this {@link InventorySearchCursor} was created from.
+     */
+    public ItemSortMethod getSortMethod() {
+        return sortMethod;
+    }
+
+    /**
+     * Gets the ID of the last result before this {@link InventorySearchCursor}.
+     */
+    public long getID() {
+        return id;
+    }
+
+    long getKey() {
+        return key;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof InventorySearchCursor cursor &&
+                sortMethod == cursor.sortMethod &&
+                key == cursor.key &&
+                Objects.equals(name, cursor.name) &&
+                id == cursor.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sortMethod, key, name, id);
+    }
+}
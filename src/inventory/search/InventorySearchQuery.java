@@ -1,6 +1,9 @@
 package src.inventory.search;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 
 import src.inventory.InventoryManager;
@@ -14,6 +17,10 @@ public class InventorySearchQuery {
     private ItemSortMethod sortMethod = ItemSortMethod.id;
     private ItemFilterMethod filterMethod = ItemFilterMethod.name;
     private final ArrayList<ItemType> itemTypes = new ArrayList<>(5);
+    private final EnumMap<ItemAttribute, ItemRange> ranges = new EnumMap<>(ItemAttribute.class);
+    private int limit;
+    private InventorySearchCursor cursor;
+    private ExecutionMode executionMode = ExecutionMode.automatic;
 
     public InventorySearchQuery() {}
 
@@ -41,6 +48,67 @@ public class InventorySearchQuery {
         this.filterMethod = filterMethod;
     }
 
+    /**
+     * Gets the maximum amount of results to return.
+     *
+     * @return The maximum amount of results, 0 if unlimited.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Sets the maximum amount of results to return.
+     *
+     * @param limit The maximum amount of results, 0 if unlimited.
+     * @throws IllegalArgumentException If the limit is negative.
+     */
+    public void setLimit(int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit must not be negative.");
+        }
+
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the {@link InventorySearchCursor} that results are returned after.
+     *
+     * @return The {@link InventorySearchCursor}, <code>null</code> if results are returned from the start.
+     */
+    public InventorySearchCursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Sets the {@link InventorySearchCursor} to return results after, usually the
+     * {@link InventorySearchResult#getNextCursor()} of the previous page. Only used when a limit is set.
+     *
+     * @param cursor The {@link InventorySearchCursor}, <code>null</code> to return results from the start.
+     */
+    public void setCursor(InventorySearchCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Gets how this query is executed.
+     *
+     * @return The {@link ExecutionMode}. {@link ExecutionMode#automatic} defers to the {@link InventoryManager}.
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Sets how this query is executed.
+     *
+     * @param executionMode The {@link ExecutionMode}. {@link ExecutionMode#automatic} defers to the
+     * {@link InventoryManager}.
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
     public List<ItemType> getItemTypes() {
         return itemTypes;
     }
@@ -70,12 +138,49 @@ public class InventorySearchQuery {
         itemTypes.clear();
     }
 
+    /**
+     * Gets the {@link ItemRange}s that results must be within, ordered by their {@link ItemAttribute}.
+     */
+    public Collection<ItemRange> getRanges() {
+        return Collections.unmodifiableCollection(ranges.values());
+    }
+
+    /**
+     * Sets the range that the value of an {@link ItemAttribute} must be within, replacing any range previously set
+     * for it. Both bounds are inclusive.
+     *
+     * @param attribute The {@link ItemAttribute}.
+     * @param min The lowest value, {@link Double#NEGATIVE_INFINITY} for no minimum.
+     * @param max The highest value, {@link Double#POSITIVE_INFINITY} for no maximum.
+     * @throws IllegalArgumentException If a bound is not a number or the minimum exceeds the maximum.
+     */
+    public void setRange(ItemAttribute attribute, double min, double max) throws IllegalArgumentException {
+        ranges.put(attribute, new ItemRange(attribute, min, max));
+    }
+
+    /**
+     * Removes the range of an {@link ItemAttribute}.
+     *
+     * @param attribute The {@link ItemAttribute}.
+     */
+    public void removeRange(ItemAttribute attribute) {
+        ranges.remove(attribute);
+    }
+
+    /**
+     * Removes all ranges.
+     */
+    public void emptyRanges() {
+        ranges.clear();
+    }
+
     public void print() {
         System.out.println("Inventory Search Information");
         System.out.println("-".repeat(28));
         System.out.printf("Search term: %s\n", !query.isEmpty() ? query : "None");
         System.out.printf("Sort by: %s\n", sortMethod);
         System.out.printf("Filter by: %s\n", filterMethod);
+        System.out.printf("Results per page: %s\n", limit > 0 ? limit : "All");
         System.out.print("Included item types: ");
 
         if (!itemTypes.isEmpty()) {
@@ -89,5 +194,19 @@ public class InventorySearchQuery {
         } else {
             System.out.println("All");
         }
+
+        System.out.print("Ranges: ");
+
+        if (!ranges.isEmpty()) {
+            var joined = new ArrayList<String>(ranges.size());
+
+            for (var range : ranges.values()) {
+                joined.add(range.toString());
+            }
+
+            System.out.println(String.join(", ", joined));
+        } else {
+            System.out.println("None");
+        }
     }
 }
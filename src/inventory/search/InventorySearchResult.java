@@ -1,7 +1,9 @@
 package src.inventory.search;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import src.inventory.InventoryManager;
 import src.item.Item;
@@ -11,22 +13,56 @@ import src.item.Item;
  */
 public class InventorySearchResult {
     private final ArrayList<Item> items;
+    private final InventorySearchCursor nextCursor;
 
     public InventorySearchResult(ArrayList<Item> items) {
+        this(items, null);
+    }
+
+    /**
+     * @param items The {@link Item}s in this page of results.
+     * @param nextCursor The {@link InventorySearchCursor} to continue after this page of results,
+     * <code>null</code> if there are no more results.
+     */
+    public InventorySearchResult(ArrayList<Item> items, InventorySearchCursor nextCursor) {
         this.items = items;
+        this.nextCursor = nextCursor;
     }
 
+    /**
+     * Gets the {@link Item}s in this page of results.
+     * <p>
+     * The returned list cannot be modified, as a result may be shared by several searches.
+     * </p>
+     */
     public List<Item> getItems() {
-        return items;
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Gets the {@link InventorySearchCursor} to continue after this page of results.
+     *
+     * @return The {@link InventorySearchCursor}, <code>null</code> if there are no more results.
+     */
+    public InventorySearchCursor getNextCursor() {
+        return nextCursor;
     }
 
     public void print() {
+        print(items.stream());
+    }
+
+    /**
+     * Prints search results as they are produced, for example by
+     * {@link InventoryManager#streamItems(InventorySearchQuery)}, without collecting them first.
+     *
+     * @param items The {@link Item}s to print.
+     */
+    public static void print(Stream<Item> items) {
         System.out.println("Inventory Search Result");
         System.out.println("-".repeat(23));
         System.out.printf("ID\tName%s\tType%s\tStock\tPrice\n", "-".repeat(50), "-".repeat(16));
 
-        for (var item : items) {
-            System.out.println(item.generateTableRow());
-        }
+        items.forEachOrdered(item -> System.out.println(item.generateTableRow()));
     }
 }
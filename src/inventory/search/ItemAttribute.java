@@ -0,0 +1,74 @@
+package src.inventory.search;
+
+import src.item.FoodItem;
+import src.item.Item;
+import src.item.ItemWithVolume;
+import src.item.ItemWithWeight;
+
+/**
+ * Numeric attributes of items that searches can filter by range.
+ */
+public enum ItemAttribute {
+    price,
+    stock,
+    calories,
+    weight,
+    volume;
+
+    /**
+     * Attempts to parse a number to an {@link ItemAttribute}.
+     *
+     * @param num The number to parse.
+     * @return The parsed {@link ItemAttribute}.
+     * @throws IllegalArgumentException If the number is invalid.
+     */
+    public static ItemAttribute from(short num) throws IllegalArgumentException {
+        return switch (num) {
+            case 1 -> price;
+            case 2 -> stock;
+            case 3 -> calories;
+            case 4 -> weight;
+            case 5 -> volume;
+            default -> throw new IllegalArgumentException("Invalid attribute: " + num);
+        };
+    }
+
+    /**
+     * Lists all {@link ItemAttribute}s.
+     */
+    public static void listAttributes() {
+        System.out.println("Available item attributes:");
+        System.out.println("1. " + price);
+        System.out.println("2. " + stock);
+        System.out.println("3. " + calories);
+        System.out.println("4. " + weight);
+        System.out.println("5. " + volume);
+    }
+
+    /**
+     * Gets the value of this {@link ItemAttribute} in an {@link Item}.
+     *
+     * @param item The {@link Item}.
+     * @return The value, {@link Double#NaN} if the {@link Item} does not have this {@link ItemAttribute}.
+     */
+    public double getValue(Item item) {
+        return switch (this) {
+            case price -> item.getPrice();
+            case stock -> item.getStock();
+            case calories -> item instanceof FoodItem foodItem ? foodItem.getCalories() : Double.NaN;
+            case weight -> item instanceof ItemWithWeight weightItem ? weightItem.getWeight() : Double.NaN;
+            case volume -> item instanceof ItemWithVolume volumeItem ? volumeItem.getVolume() : Double.NaN;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return switch (this) {
+            case price -> "Price";
+            case stock -> "Stock";
+            case calories -> "Calories";
+            case weight -> "Weight";
+            case volume -> "Volume";
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package src.inventory.search;
+
+import src.item.Item;
+
+/**
+ * A range that the value of an {@link ItemAttribute} must be within for an item to match a search.
+ * <p>
+ * Both bounds are inclusive. An open-ended range uses an infinite bound, for example
+ * {@link Double#NEGATIVE_INFINITY} as its minimum.
+ * </p>
+ *
+ * @param attribute The {@link ItemAttribute}.
+ * @param min The lowest value that is within the range.
+ * @param max The highest value that is within the range.
+ */
+public record ItemRange(ItemAttribute attribute, double min, double max) {
+    /**
+     * @throws IllegalArgumentException If a bound is not a number or the minimum exceeds the maximum.
+     */
+    public ItemRange {
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            throw new IllegalArgumentException("The bounds of a range must be numbers.");
+        }
+
+        if (min > max) {
+            throw new IllegalArgumentException("The minimum of a range must not exceed its maximum.");
+        }
+    }
+
+    /**
+     * Whether an {@link Item} is within this {@link ItemRange}. An {@link Item} that does not have the
+     * {@link ItemAttribute} of this {@link ItemRange} is never within it.
+     *
+     * @param item The {@link Item}.
+     */
+    public boolean contains(Item item) {
+        double value = attribute.getValue(item);
+
+        return value >= min && value <= max;
+    }
+
+    @Override
+    public String toString() {
+        if (min == Double.NEGATIVE_INFINITY) {
+            return String.format("%s at most %s", attribute, max);
+        }
+
+        if (max == Double.POSITIVE_INFINITY) {
+            return String.format("%s at least %s", attribute, min);
+        }
+
+        return String.format("%s from %s to %s", attribute, min, max);
+    }
+}
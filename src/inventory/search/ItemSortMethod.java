@@ -9,7 +9,8 @@ public enum ItemSortMethod {
     priceSmallestToHighest,
     priceHighestToSmallest,
     stockSmallestToHighest,
-    stockHighestToSmallest;
+    stockHighestToSmallest,
+    relevance;
 
     /**
      * Attempts to parse a number to an {@link ItemSortMethod}.
@@ -26,6 +27,7 @@ public enum ItemSortMethod {
             case 4 -> priceHighestToSmallest;
             case 5 -> stockSmallestToHighest;
             case 6 -> stockHighestToSmallest;
+            case 7 -> relevance;
             default -> throw new IllegalArgumentException("Invalid method: " + num);
         };
     }
@@ -41,6 +43,7 @@ public enum ItemSortMethod {
         System.out.println("4. " + priceHighestToSmallest);
         System.out.println("5. " + stockSmallestToHighest);
         System.out.println("6. " + stockHighestToSmallest);
+        System.out.println("7. " + relevance);
     }
 
     @Override
@@ -52,6 +55,7 @@ public enum ItemSortMethod {
             case priceHighestToSmallest -> "Price (highest to smallest)";
             case stockSmallestToHighest -> "Stock (smallest to highest)";
             case stockHighestToSmallest -> "Stock (highest to smallest)";
+            case relevance -> "Relevance (description searches only)";
         };
     }
 }
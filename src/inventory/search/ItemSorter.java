@@ -0,0 +1,51 @@
+package src.inventory.search;
+
+import java.util.List;
+
+import src.item.Item;
+
+/**
+ * Sorts {@link Item}s according to an {@link ItemSortMethod}.
+ * <p>
+ * Sorters extract the sort key of every {@link Item} once before sorting, so keys are never recomputed during
+ * comparisons and an {@link Item} that changes while it is being sorted cannot corrupt the order. All sorters are
+ * stable: {@link Item}s with equal keys keep their relative order, in ascending and descending order alike.
+ * </p>
+ */
+public interface ItemSorter {
+    /**
+     * Sorts a list of {@link Item}s in place.
+     *
+     * @param items The {@link Item}s to sort.
+     */
+    void sort(List<Item> items);
+
+    /**
+     * Gets the {@link ItemSorter} for an {@link ItemSortMethod}.
+     *
+     * @param method The {@link ItemSortMethod}.
+     * @return The {@link ItemSorter}.
+     */
+    static ItemSorter of(ItemSortMethod method) {
+        return switch (method) {
+            // Only searches can be ranked by relevance, anything else falls back to ID order.
+            case id, relevance -> RadixItemSorter.byId;
+            case name -> NameItemSorter.instance;
+            case priceSmallestToHighest -> RadixItemSorter.byPriceAscending;
+            case priceHighestToSmallest -> RadixItemSorter.byPriceDescending;
+            case stockSmallestToHighest -> RadixItemSorter.byStockAscending;
+            case stockHighestToSmallest -> RadixItemSorter.byStockDescending;
+        };
+    }
+
+    /**
+     * Gets an {@link ItemSorter} for an {@link ItemSortMethod} that sorts in parallel. It produces the same order
+     * as {@link #of(ItemSortMethod)}, but is only worth its overhead for large amounts of {@link Item}s.
+     *
+     * @param method The {@link ItemSortMethod}.
+     * @return The {@link ItemSorter}.
+     */
+    static ItemSorter parallel(ItemSortMethod method) {
+        return new ParallelItemSorter(method);
+    }
+}
@@ -0,0 +1,112 @@
+package src.inventory.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import src.item.Item;
+
+/**
+ * An {@link ItemSorter} that sorts {@link Item}s by their name, ignoring case.
+ * <p>
+ * The lower-cased name of every {@link Item} is computed once up front rather than on both sides of every
+ * comparison. Names are then radix sorted a few characters at a time, by packing those characters into a
+ * <code>long</code> key, and only small groups of names that share a prefix are sorted by comparing them.
+ * </p>
+ */
+final class NameItemSorter implements ItemSorter {
+    static final NameItemSorter instance = new NameItemSorter();
+
+    private static final int prefixLength = Long.SIZE / Character.SIZE;
+    private static final int comparisonThreshold = 32;
+    private static final Comparator<KeyedItem> byKey = (a, b) -> a.key().compareTo(b.key());
+
+    private NameItemSorter() {}
+
+    @Override
+    public void sort(List<Item> items) {
+        var keyed = new KeyedItem[items.size()];
+
+        for (int i = 0; i < keyed.length; ++i) {
+            var item = items.get(i);
+
+            keyed[i] = new KeyedItem(item.getIdentifier().getName().toLowerCase(), item);
+        }
+
+        sort(keyed, 0, keyed.length, 0, new long[keyed.length]);
+
+        for (int i = 0; i < keyed.length; ++i) {
+            items.set(i, keyed[i].item());
+        }
+    }
+
+    /**
+     * Sorts a range of {@link KeyedItem}s whose keys share their first characters.
+     *
+     * @param keyed The {@link KeyedItem}s.
+     * @param from The index of the first {@link KeyedItem} to sort, inclusive.
+     * @param to The index of the last {@link KeyedItem} to sort, exclusive.
+     * @param offset The amount of characters that all keys in the range share.
+     * @param prefixes A scratch array that is at least as long as <code>keyed</code>.
+     */
+    private static void sort(KeyedItem[] keyed, int from, int to, int offset, long[] prefixes) {
+        if (to - from <= comparisonThreshold) {
+            // Sorting an object array is stable.
+            Arrays.sort(keyed, from, to, byKey);
+            return;
+        }
+
+        boolean exhausted = true;
+
+        for (int i = from; i < to; ++i) {
+            var key = keyed[i].key();
+
+            prefixes[i] = prefix(key, offset);
+            exhausted &= key.length() <= offset;
+        }
+
+        // Every key in the range ends before the offset, so the keys can only differ in their length when one of
+        // them ends with the lowest character, which the padding cannot tell apart.
+        if (exhausted) {
+            Arrays.sort(keyed, from, to, byKey);
+            return;
+        }
+
+        RadixItemSorter.sort(prefixes, keyed, from, to);
+
+        // Keys that share the next characters as well are ordered by the characters after them.
+        for (int start = from, end; start < to; start = end) {
+            end = start + 1;
+
+            while (end < to && prefixes[end] == prefixes[start]) {
+                ++end;
+            }
+
+            if (end - start > 1) {
+                sort(keyed, start, end, offset + prefixLength, prefixes);
+            }
+        }
+    }
+
+    /**
+     * Packs characters of a string into a key whose unsigned order matches the order of the strings.
+     * <p>
+     * Strings that end within the packed characters are padded with the lowest character, so they are placed in
+     * front of longer strings that start with them.
+     * </p>
+     *
+     * @param key The string.
+     * @param offset The index of the first character to pack.
+     */
+    private static long prefix(String key, int offset) {
+        long prefix = 0;
+
+        for (int i = offset; i < offset + prefixLength; ++i) {
+            prefix = (prefix << Character.SIZE) | (i < key.length() ? key.charAt(i) : 0);
+        }
+
+        return prefix;
+    }
+
+    private record KeyedItem(String key, Item item) {}
+}
@@ -0,0 +1,52 @@
+package src.inventory.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import src.item.Item;
+
+/**
+ * An {@link ItemSorter} that splits the work across the common fork/join pool, for large amounts of
+ * {@link Item}s.
+ * <p>
+ * Sort keys are extracted in parallel, after which the keyed {@link Item}s are sorted with
+ * {@link Arrays#parallelSort(Object[], Comparator)}, which sorts chunks in parallel and merges them. Equal keys are
+ * ordered by their position in the input rather than relying on the stability of that sort, which does not hold
+ * for large arrays on every JDK, so the result is identical to that of {@link ItemSorter#of}.
+ * </p>
+ */
+final class ParallelItemSorter implements ItemSorter {
+    private static final Comparator<KeyedItem> order = (a, b) -> {
+        int comparison = SortKeys.compare(a.key(), a.name(), b.key(), b.name());
+
+        return comparison != 0 ? comparison : Integer.compare(a.position(), b.position());
+    };
+
+    private final ItemSortMethod sortMethod;
+
+    ParallelItemSorter(ItemSortMethod sortMethod) {
+        // Only searches can be ranked by relevance, anything else falls back to ID order.
+        this.sortMethod = sortMethod == ItemSortMethod.relevance ? ItemSortMethod.id : sortMethod;
+    }
+
+    @Override
+    public void sort(List<Item> items) {
+        var keyed = new KeyedItem[items.size()];
+
+        IntStream.range(0, keyed.length).parallel().forEach(i -> {
+            var item = items.get(i);
+
+            keyed[i] = new KeyedItem(SortKeys.numeric(sortMethod, item, 0), SortKeys.name(sortMethod, item), i, item);
+        });
+
+        Arrays.parallelSort(keyed, order);
+
+        for (int i = 0; i < keyed.length; ++i) {
+            items.set(i, keyed[i].item());
+        }
+    }
+
+    private record KeyedItem(long key, String name, int position, Item item) {}
+}
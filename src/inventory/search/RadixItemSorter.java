@@ -0,0 +1,162 @@
+package src.inventory.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import src.item.Item;
+
+/**
+ * An {@link ItemSorter} that sorts {@link Item}s by a numeric key using a least significant digit radix sort.
+ * <p>
+ * Keys are mapped to <code>long</code>s whose unsigned order matches the desired order, so descending orders
+ * are sorted natively by inverting the key instead of reversing the result. The sort takes one pass per byte of
+ * the key, and bytes that are equal across all keys (such as the high bytes of small IDs) are skipped.
+ * </p>
+ */
+final class RadixItemSorter implements ItemSorter {
+    static final RadixItemSorter byId = new RadixItemSorter(item -> signed(item.getIdentifier().getID()), false);
+    static final RadixItemSorter byPriceAscending = new RadixItemSorter(item -> signed(item.getPrice()), false);
+    static final RadixItemSorter byPriceDescending = new RadixItemSorter(item -> signed(item.getPrice()), true);
+    static final RadixItemSorter byStockAscending = new RadixItemSorter(item -> signed(item.getStock()), false);
+    static final RadixItemSorter byStockDescending = new RadixItemSorter(item -> signed(item.getStock()), true);
+
+    private static final int digitBits = 8;
+    private static final int radix = 1 << digitBits;
+
+    private final ToLongFunction<Item> keyExtractor;
+    private final boolean descending;
+
+    /**
+     * @param keyExtractor Extracts the key of an {@link Item}, in an unsigned order.
+     * @param descending Whether to sort in descending order.
+     */
+    private RadixItemSorter(ToLongFunction<Item> keyExtractor, boolean descending) {
+        this.keyExtractor = keyExtractor;
+        this.descending = descending;
+    }
+
+    @Override
+    public void sort(List<Item> items) {
+        int size = items.size();
+
+        if (size < 2) {
+            return;
+        }
+
+        var sorted = items.toArray(new Item[0]);
+        var keys = new long[size];
+
+        for (int i = 0; i < size; ++i) {
+            long key = keyExtractor.applyAsLong(sorted[i]);
+
+            keys[i] = descending ? ~key : key;
+        }
+
+        sort(keys, sorted);
+
+        for (int i = 0; i < size; ++i) {
+            items.set(i, sorted[i]);
+        }
+    }
+
+    /**
+     * Sorts values by their keys, in the unsigned order of the keys.
+     *
+     * @param keys The keys. Will be sorted as well.
+     * @param values The values, where every value is at the same index as its key.
+     * @param <T> The type of the values.
+     */
+    static <T> void sort(long[] keys, T[] values) {
+        sort(keys, values, 0, keys.length);
+    }
+
+    /**
+     * Sorts a range of values by their keys, in the unsigned order of the keys.
+     *
+     * @param keys The keys. Will be sorted as well.
+     * @param values The values, where every value is at the same index as its key.
+     * @param from The index of the first value to sort, inclusive.
+     * @param to The index of the last value to sort, exclusive.
+     * @param <T> The type of the values.
+     */
+    static <T> void sort(long[] keys, T[] values, int from, int to) {
+        int size = to - from;
+
+        if (size < 2) {
+            return;
+        }
+
+        var sourceKeys = keys;
+        var sourceValues = values;
+        int sourceFrom = from;
+        var keyBuffer = new long[size];
+        var valueBuffer = Arrays.copyOfRange(values, from, to);
+        int bufferFrom = 0;
+        var counts = new int[radix];
+
+        for (int shift = 0; shift < Long.SIZE; shift += digitBits) {
+            Arrays.fill(counts, 0);
+
+            for (int i = sourceFrom; i < sourceFrom + size; ++i) {
+                ++counts[(int) (sourceKeys[i] >>> shift) & (radix - 1)];
+            }
+
+            // Every key has the same digit, so this pass would not move anything.
+            if (counts[(int) (sourceKeys[sourceFrom] >>> shift) & (radix - 1)] == size) {
+                continue;
+            }
+
+            for (int i = 0, offset = bufferFrom; i < radix; ++i) {
+                int count = counts[i];
+                counts[i] = offset;
+                offset += count;
+            }
+
+            // Scattering in input order keeps the sort stable.
+            for (int i = sourceFrom; i < sourceFrom + size; ++i) {
+                int target = counts[(int) (sourceKeys[i] >>> shift) & (radix - 1)]++;
+
+                keyBuffer[target] = sourceKeys[i];
+                valueBuffer[target] = sourceValues[i];
+            }
+
+            var swapKeys = sourceKeys;
+            sourceKeys = keyBuffer;
+            keyBuffer = swapKeys;
+
+            var swapValues = sourceValues;
+            sourceValues = valueBuffer;
+            valueBuffer = swapValues;
+
+            int swapFrom = sourceFrom;
+            sourceFrom = bufferFrom;
+            bufferFrom = swapFrom;
+        }
+
+        if (sourceKeys != keys) {
+            System.arraycopy(sourceKeys, sourceFrom, keys, from, size);
+            System.arraycopy(sourceValues, sourceFrom, values, from, size);
+        }
+    }
+
+    /**
+     * Maps a signed <code>long</code> to a key whose unsigned order matches its signed order.
+     */
+    static long signed(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Maps a <code>float</code> to a key whose unsigned order matches {@link Float#compare(float, float)}.
+     */
+    static long signed(float value) {
+        int bits = Float.floatToIntBits(value);
+
+        // Negative floats are ordered backwards by their bits, so all of their bits are flipped. Positive floats
+        // only need their sign bit flipped to be placed after the negative ones.
+        bits ^= (bits >> 31) | Integer.MIN_VALUE;
+
+        return bits & 0xFFFFFFFFL;
+    }
+}
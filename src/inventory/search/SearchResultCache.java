@@ -0,0 +1,191 @@
+package src.inventory.search;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import src.inventory.InventoryManager;
+import src.inventory.index.TermIndex;
+import src.item.ItemType;
+
+/**
+ * A bounded cache of {@link InventorySearchResult}s that evicts the least recently used result once it is full.
+ * <p>
+ * Every result is stored along with the modification version of the {@link InventoryManager} it was computed
+ * from. A result is only returned while that version is still current, so any change to the inventory invalidates
+ * every cached result at once without having to visit them.
+ * </p>
+ * <p>
+ * A {@link SearchResultCache} can be shared between threads.
+ * </p>
+ */
+public final class SearchResultCache {
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    private int capacity;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity The maximum amount of results to cache. A capacity of 0 disables the cache.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public SearchResultCache(int capacity) throws IllegalArgumentException {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Gets the result of a search if it was cached at the current version.
+     * <p>
+     * Every call is counted as a hit or a miss.
+     * </p>
+     *
+     * @param key The {@link Key} of the search.
+     * @param version The current modification version.
+     * @return The {@link InventorySearchResult}, <code>null</code> if it is not cached or outdated.
+     */
+    public synchronized InventorySearchResult get(Key key, long version) {
+        var entry = capacity > 0 ? entries.get(key) : null;
+
+        if (entry == null || entry.version() != version) {
+            ++misses;
+
+            return null;
+        }
+
+        ++hits;
+
+        return entry.result();
+    }
+
+    /**
+     * Caches the result of a search.
+     *
+     * @param key The {@link Key} of the search.
+     * @param version The modification version the result was computed at.
+     * @param result The {@link InventorySearchResult}.
+     */
+    public synchronized void put(Key key, long version, InventorySearchResult result) {
+        if (capacity == 0) {
+            return;
+        }
+
+        // A search that started earlier may finish later, in which case the newer result is kept.
+        var entry = entries.get(key);
+
+        if (entry == null || entry.version() <= version) {
+            entries.put(key, new Entry(version, result));
+        }
+    }
+
+    /**
+     * Gets the maximum amount of results this {@link SearchResultCache} holds.
+     */
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximum amount of results this {@link SearchResultCache} holds, evicting the least recently used
+     * results if there are more.
+     *
+     * @param capacity The maximum amount of results. A capacity of 0 disables the cache.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public synchronized void setCapacity(int capacity) throws IllegalArgumentException {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity must not be negative.");
+        }
+
+        this.capacity = capacity;
+
+        var iterator = entries.keySet().iterator();
+
+        while (entries.size() > capacity) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the amount of searches that were answered from this {@link SearchResultCache}.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the amount of searches that could not be answered from this {@link SearchResultCache}.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes every cached result.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * The canonical form of an {@link InventorySearchQuery}.
+     * <p>
+     * Queries that always produce the same results share a {@link Key}: name searches ignore case, description
+     * searches only depend on their words, the order and repetition of item types do not matter, and the
+     * {@link ExecutionMode} is left out entirely.
+     * </p>
+     *
+     * @param filterMethod The {@link ItemFilterMethod}, {@link ItemFilterMethod#name} if the query is empty.
+     * @param text The lowercase search term of a name search, empty for description searches.
+     * @param terms The words of a description search, empty for name searches.
+     * @param sortMethod The {@link ItemSortMethod}.
+     * @param itemTypes The {@link ItemType}s to filter by.
+     * @param ranges The {@link ItemRange}s to filter by, ordered by their {@link ItemAttribute}.
+     * @param limit The maximum amount of results, 0 if unlimited.
+     * @param cursor The {@link InventorySearchCursor} to return results after, <code>null</code> if none.
+     */
+    public record Key(
+            ItemFilterMethod filterMethod,
+            String text,
+            List<String> terms,
+            ItemSortMethod sortMethod,
+            Set<ItemType> itemTypes,
+            List<ItemRange> ranges,
+            int limit,
+            InventorySearchCursor cursor) {
+
+        /**
+         * Gets the {@link Key} of an {@link InventorySearchQuery}.
+         *
+         * @param query The {@link InventorySearchQuery}.
+         * @return The {@link Key}.
+         */
+        public static Key of(InventorySearchQuery query) {
+            var filterMethod = query.getQuery().isEmpty() ? ItemFilterMethod.name : query.getFilterMethod();
+            var itemTypes = query.getItemTypes().isEmpty() ?
+                    EnumSet.noneOf(ItemType.class) :
+                    EnumSet.copyOf(query.getItemTypes());
+
+            return new Key(
+                    filterMethod,
+                    filterMethod == ItemFilterMethod.name ? query.getQuery().toLowerCase() : "",
+                    filterMethod == ItemFilterMethod.description ? TermIndex.uniqueTerms(query.getQuery()) : List.of(),
+                    query.getSortMethod(),
+                    itemTypes,
+                    List.copyOf(query.getRanges()),
+                    query.getLimit(),
+                    query.getCursor()
+            );
+        }
+    }
+
+    private record Entry(long version, InventorySearchResult result) {}
+}
@@ -0,0 +1,63 @@
+package src.inventory.search;
+
+import src.item.Item;
+
+/**
+ * Extracts and compares the sort keys of {@link Item}s, in the order that the {@link ItemSorter}s sort them.
+ * <p>
+ * Results that are sorted by name use their lower-cased name as the key. Any other result uses a number whose
+ * unsigned order is the sort order, including descending orders.
+ * </p>
+ */
+final class SortKeys {
+    private SortKeys() {}
+
+    /**
+     * Gets the numeric sort key of an {@link Item}.
+     *
+     * @param sortMethod The {@link ItemSortMethod}.
+     * @param item The {@link Item}.
+     * @param score How relevant the {@link Item} is to a search. Only used when sorting by
+     * {@link ItemSortMethod#relevance}.
+     * @return The key, 0 when sorting by name.
+     */
+    static long numeric(ItemSortMethod sortMethod, Item item, double score) {
+        return switch (sortMethod) {
+            case id -> RadixItemSorter.signed(item.getIdentifier().getID());
+            case name -> 0;
+            case priceSmallestToHighest -> RadixItemSorter.signed(item.getPrice());
+            case priceHighestToSmallest -> ~RadixItemSorter.signed(item.getPrice());
+            case stockSmallestToHighest -> RadixItemSorter.signed(item.getStock());
+            case stockHighestToSmallest -> ~RadixItemSorter.signed(item.getStock());
+            // Higher scores come first.
+            case relevance -> ~signed(score);
+        };
+    }
+
+    /**
+     * Gets the name sort key of an {@link Item}.
+     *
+     * @param sortMethod The {@link ItemSortMethod}.
+     * @param item The {@link Item}.
+     * @return The key, <code>null</code> when not sorting by name.
+     */
+    static String name(ItemSortMethod sortMethod, Item item) {
+        return sortMethod == ItemSortMethod.name ? item.getIdentifier().getName().toLowerCase() : null;
+    }
+
+    /**
+     * Compares two sort keys that were extracted with the same {@link ItemSortMethod}.
+     */
+    static int compare(long key, String name, long otherKey, String otherName) {
+        return name != null ? name.compareTo(otherName) : Long.compareUnsigned(key, otherKey);
+    }
+
+    /**
+     * Maps a <code>double</code> to a key whose unsigned order matches {@link Double#compare(double, double)}.
+     */
+    private static long signed(double value) {
+        long bits = Double.doubleToLongBits(value);
+
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,133 @@
+package src.inventory.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import src.item.Item;
+
+/**
+ * Selects the first results of a search in sort order without sorting every result.
+ * <p>
+ * Results are kept in a heap that is bounded to the amount of results that are requested, so selecting
+ * <code>k</code> out of <code>n</code> results takes <code>O(n log k)</code> time. Results at or before an
+ * {@link InventorySearchCursor} are skipped, which lets later pages be selected the same way instead of sorting
+ * every result up to them.
+ * </p>
+ * <p>
+ * Results are ordered the same way as an {@link ItemSorter} orders {@link Item}s that are sorted by their ID.
+ * </p>
+ */
+public final class TopKSelector {
+    private static final Comparator<Hit> order = (a, b) -> {
+        int comparison = SortKeys.compare(a.key(), a.name(), b.key(), b.name());
+
+        return comparison != 0 ? comparison : Long.compare(a.id(), b.id());
+    };
+
+    private final ItemSortMethod sortMethod;
+    private final int limit;
+    private final Hit after;
+    private final PriorityQueue<Hit> heap;
+    private boolean hasMore;
+
+    /**
+     * @param sortMethod The {@link ItemSortMethod} of the search.
+     * @param limit The amount of results to select.
+     * @param after The {@link InventorySearchCursor} to select the results after, <code>null</code> to select
+     * the first results.
+     * @throws IllegalArgumentException If the limit is not positive, or if the {@link InventorySearchCursor}
+     * belongs to a search with a different {@link ItemSortMethod}.
+     */
+    public TopKSelector(ItemSortMethod sortMethod, int limit, InventorySearchCursor after) throws IllegalArgumentException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+
+        if (after != null && after.getSortMethod() != sortMethod) {
+            throw new IllegalArgumentException("The cursor belongs to a search with a different sort method.");
+        }
+
+        this.sortMethod = sortMethod;
+        this.limit = limit;
+        this.after = after != null ? new Hit(after.getKey(), after.getName(), after.getID(), null) : null;
+
+        // The root of the heap is the last of the selected results, which is the first to be evicted.
+        heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+    }
+
+    /**
+     * Offers a result to this {@link TopKSelector}.
+     *
+     * @param item The {@link Item} that matched the search.
+     * @param score How relevant the {@link Item} is to the search. Only used when sorting by
+     * {@link ItemSortMethod#relevance}.
+     */
+    public void offer(Item item, double score) {
+        var hit = hit(item, score);
+
+        if (after != null && order.compare(hit, after) <= 0) {
+            return;
+        }
+
+        if (heap.size() < limit) {
+            heap.add(hit);
+        } else {
+            hasMore = true;
+
+            if (order.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+    }
+
+    /**
+     * Gets the selected results.
+     *
+     * @return The selected {@link Item}s in sort order.
+     */
+    public List<Item> getItems() {
+        var hits = new ArrayList<>(heap);
+        hits.sort(order);
+
+        var items = new ArrayList<Item>(hits.size());
+
+        for (var hit : hits) {
+            items.add(hit.item());
+        }
+
+        return items;
+    }
+
+    /**
+     * Gets the {@link InventorySearchCursor} to continue after the selected results.
+     *
+     * @return The {@link InventorySearchCursor}, <code>null</code> if there are no more results.
+     */
+    public InventorySearchCursor getNextCursor() {
+        if (!hasMore) {
+            return null;
+        }
+
+        // The root of the heap is the last selected result.
+        var last = heap.peek();
+
+        return new InventorySearchCursor(sortMethod, last.key(), last.name(), last.id());
+    }
+
+    private Hit hit(Item item, double score) {
+        return new Hit(
+                SortKeys.numeric(sortMethod, item, score),
+                SortKeys.name(sortMethod, item),
+                item.getIdentifier().getID(),
+                item
+        );
+    }
+
+    /**
+     * A result of a search along with its sort key, as extracted by {@link SortKeys}.
+     */
+    private record Hit(long key, String name, long id, Item item) {}
+}
@@ -0,0 +1,421 @@
+package src.inventory.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import src.inventory.search.ItemAttribute;
+import src.inventory.search.ItemRange;
+import src.item.FoodItem;
+import src.item.Item;
+import src.item.ItemListener;
+import src.item.ItemType;
+import src.item.ItemWithVolume;
+import src.item.ItemWithWeight;
+
+/**
+ * An {@link ItemStorage} that lays out {@link Item}s column by column, for inventories that are mostly scanned.
+ * <p>
+ * Every scalar field that searches filter on is kept in its own primitive array, sorted by ID. Type filters and
+ * range filters on such a field are then tight loops over a single contiguous array instead of a walk over
+ * {@link Item} objects and their {@link src.item.ItemIdentifier}s. The {@link Item}s themselves are only touched
+ * once a row matches.
+ * </p>
+ * <p>
+ * Columns that do not apply to an {@link Item} (for example the calories of a non-food item) hold
+ * {@link Float#NaN}, which never satisfies a numeric comparison.
+ * </p>
+ * <p>
+ * The columns are a copy of the data of the {@link Item}s, which the owning
+ * {@link src.inventory.InventoryManager} {@link #refresh(Item) refreshes} in a batch before it next scans them, so
+ * changing an {@link Item} never waits for the columns.
+ * </p>
+ */
+public class ColumnarItemStorage implements ItemStorage {
+    private static final int minCapacity = 16;
+
+    private int size;
+    private long[] ids;
+    private long[] stock;
+    private float[] price;
+    private byte[] types;
+    private float[] calories;
+    private float[] weight;
+    private float[] volume;
+    private Item[] items;
+    private final int[] typeCounts = new int[ItemType.values().length];
+    private ItemListener listener;
+
+    public ColumnarItemStorage() {
+        this(minCapacity);
+    }
+
+    /**
+     * @param capacity The amount of {@link Item}s to reserve room for.
+     */
+    public ColumnarItemStorage(int capacity) {
+        allocate(Math.max(capacity, minCapacity));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Item get(long id) {
+        int row = indexOf(id);
+
+        return row >= 0 ? items[row] : null;
+    }
+
+    @Override
+    public boolean add(Item item) {
+        int row = indexOf(item.getIdentifier().getID());
+
+        if (row >= 0) {
+            return false;
+        }
+
+        row = -row - 1;
+
+        if (size == ids.length) {
+            resize(size * 2);
+        }
+
+        // IDs are usually handed out incrementally, in which case the row is appended and nothing is shifted.
+        if (row < size) {
+            shift(row, row + 1, size - row);
+        }
+
+        setRow(row, item);
+        ++size;
+        ++typeCounts[types[row]];
+        item.setListener(listener);
+
+        return true;
+    }
+
+    @Override
+    public List<Item> addAll(List<Item> items) {
+        var added = new ArrayList<Item>(items.size());
+        var old = this.items;
+        int oldSize = size;
+        var oldIds = ids;
+
+        // Merge the batch with the existing rows into freshly allocated columns in a single pass.
+        allocate(Math.max(oldSize + items.size(), minCapacity));
+        size = 0;
+
+        int index = 0;
+
+        for (var item : items) {
+            long id = item.getIdentifier().getID();
+
+            while (index < oldSize && oldIds[index] < id) {
+                setRow(size++, old[index++]);
+            }
+
+            boolean exists = index < oldSize && oldIds[index] == id;
+            boolean repeated = size > 0 && ids[size - 1] == id;
+
+            if (!exists && !repeated) {
+                ++typeCounts[item.getIdentifier().getType().ordinal()];
+                setRow(size++, item);
+                added.add(item);
+                item.setListener(listener);
+            }
+        }
+
+        while (index < oldSize) {
+            setRow(size++, old[index++]);
+        }
+
+        return added;
+    }
+
+    @Override
+    public Item remove(long id) {
+        int row = indexOf(id);
+
+        if (row < 0) {
+            return null;
+        }
+
+        var item = items[row];
+
+        --typeCounts[types[row]];
+        shift(row + 1, row, size - row - 1);
+        items[--size] = null;
+        item.setListener(null);
+
+        return item;
+    }
+
+    @Override
+    public List<Item> removeAll(long[] ids) {
+        var removed = new ArrayList<Item>(Math.min(ids.length, size));
+        int count = 0;
+        int index = 0;
+
+        // Compact the remaining rows towards the front in a single pass.
+        for (int row = 0; row < size; ++row) {
+            long id = this.ids[row];
+
+            while (index < ids.length && ids[index] < id) {
+                ++index;
+            }
+
+            if (index < ids.length && ids[index] == id) {
+                removed.add(items[row]);
+                items[row].setListener(null);
+                --typeCounts[types[row]];
+            } else {
+                if (count != row) {
+                    shift(row, count, 1);
+                }
+
+                ++count;
+            }
+        }
+
+        Arrays.fill(items, count, size, null);
+        size = count;
+
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int row = 0; row < size; ++row) {
+            items[row].setListener(null);
+        }
+
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(typeCounts, 0);
+        size = 0;
+    }
+
+    @Override
+    public List<Item> getItemsOfTypes(Set<ItemType> types) {
+        int mask = 0;
+
+        for (var type : types) {
+            mask |= 1 << type.ordinal();
+        }
+
+        var result = new ArrayList<Item>();
+
+        for (int row = 0; row < size; ++row) {
+            if ((mask & (1 << this.types[row])) != 0) {
+                result.add(items[row]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<Item> getItemsInRanges(Set<ItemType> types, Collection<ItemRange> ranges) {
+        int mask = types.isEmpty() ? -1 : 0;
+
+        for (var type : types) {
+            mask |= 1 << type.ordinal();
+        }
+
+        var rows = new int[size];
+        int count = size;
+
+        for (int row = 0; row < size; ++row) {
+            rows[row] = row;
+        }
+
+        // Every range narrows the selected rows down with one pass over its column.
+        for (var range : ranges) {
+            count = narrow(range, rows, count);
+        }
+
+        var result = new ArrayList<Item>(count);
+
+        for (int i = 0; i < count; ++i) {
+            if ((mask & (1 << this.types[rows[i]])) != 0) {
+                result.add(items[rows[i]]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int countOf(ItemType type) {
+        return typeCounts[type.ordinal()];
+    }
+
+    @Override
+    public void setListener(ItemListener listener) {
+        this.listener = listener;
+
+        for (int row = 0; row < size; ++row) {
+            items[row].setListener(listener);
+        }
+    }
+
+    @Override
+    public boolean mirrorsItemData() {
+        return true;
+    }
+
+    @Override
+    public void refresh(Item item) {
+        int row = indexOf(item.getIdentifier().getID());
+
+        if (row >= 0 && items[row] == item) {
+            setRow(row, item);
+        }
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return iteratorFromRow(0);
+    }
+
+    @Override
+    public Iterator<Item> iterator(long fromId) {
+        int start = indexOf(fromId);
+
+        return iteratorFromRow(start >= 0 ? start : -start - 1);
+    }
+
+    private Iterator<Item> iteratorFromRow(int start) {
+        return new Iterator<>() {
+            private int row = start;
+
+            @Override
+            public boolean hasNext() {
+                return row < size;
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return items[row++];
+            }
+        };
+    }
+
+    /**
+     * Gets the row of an ID using the binary search algorithm over the ID column.
+     *
+     * @param id The ID.
+     * @return The row of the ID if found, otherwise <code>-(insertion row) - 1</code>.
+     */
+    private int indexOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Keeps the selected rows that are within an {@link ItemRange}.
+     *
+     * @param range The {@link ItemRange}.
+     * @param rows The selected rows in ascending order, which are narrowed down in place.
+     * @param count The amount of selected rows.
+     * @return The amount of rows that are still selected.
+     */
+    private int narrow(ItemRange range, int[] rows, int count) {
+        double min = range.min();
+        double max = range.max();
+        int selected = 0;
+
+        if (range.attribute() == ItemAttribute.stock) {
+            for (int i = 0; i < count; ++i) {
+                long value = stock[rows[i]];
+
+                if (value >= min && value <= max) {
+                    rows[selected++] = rows[i];
+                }
+            }
+        } else {
+            var column = switch (range.attribute()) {
+                case price -> price;
+                case calories -> calories;
+                case weight -> weight;
+                case volume -> volume;
+                case stock -> throw new IllegalStateException("The stock column is not a float column.");
+            };
+
+            for (int i = 0; i < count; ++i) {
+                float value = column[rows[i]];
+
+                if (value >= min && value <= max) {
+                    rows[selected++] = rows[i];
+                }
+            }
+        }
+
+        return selected;
+    }
+
+    /**
+     * Writes the data of an {@link Item} into a row.
+     *
+     * @param row The row.
+     * @param item The {@link Item}.
+     */
+    private void setRow(int row, Item item) {
+        ids[row] = item.getIdentifier().getID();
+        stock[row] = item.getStock();
+        price[row] = item.getPrice();
+        types[row] = (byte) item.getIdentifier().getType().ordinal();
+        calories[row] = item instanceof FoodItem foodItem ? foodItem.getCalories() : Float.NaN;
+        weight[row] = item instanceof ItemWithWeight weightItem ? weightItem.getWeight() : Float.NaN;
+        volume[row] = item instanceof ItemWithVolume volumeItem ? volumeItem.getVolume() : Float.NaN;
+        items[row] = item;
+    }
+
+    /**
+     * Moves a range of rows in every column.
+     *
+     * @param from The first row to move.
+     * @param to The row to move the first row to.
+     * @param count The amount of rows to move.
+     */
+    private void shift(int from, int to, int count) {
+        System.arraycopy(ids, from, ids, to, count);
+        System.arraycopy(stock, from, stock, to, count);
+        System.arraycopy(price, from, price, to, count);
+        System.arraycopy(types, from, types, to, count);
+        System.arraycopy(calories, from, calories, to, count);
+        System.arraycopy(weight, from, weight, to, count);
+        System.arraycopy(volume, from, volume, to, count);
+        System.arraycopy(items, from, items, to, count);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        stock = new long[capacity];
+        price = new float[capacity];
+        types = new byte[capacity];
+        calories = new float[capacity];
+        weight = new float[capacity];
+        volume = new float[capacity];
+        items = new Item[capacity];
+    }
+
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        stock = Arrays.copyOf(stock, capacity);
+        price = Arrays.copyOf(price, capacity);
+        types = Arrays.copyOf(types, capacity);
+        calories = Arrays.copyOf(calories, capacity);
+        weight = Arrays.copyOf(weight, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+        items = Arrays.copyOf(items, capacity);
+    }
+}
@@ -0,0 +1,221 @@
+package src.inventory.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import src.inventory.InventoryManager;
+import src.inventory.search.ItemRange;
+import src.item.Item;
+import src.item.ItemListener;
+import src.item.ItemType;
+
+/**
+ * A storage backend of an {@link InventoryManager}, holding {@link Item}s keyed by their ID.
+ * <p>
+ * Iterating over an {@link ItemStorage} yields its {@link Item}s in ascending ID order. Implementations are not
+ * thread-safe on their own; the owning {@link InventoryManager} is responsible for synchronizing access.
+ * </p>
+ */
+public interface ItemStorage extends Iterable<Item> {
+    /**
+     * Gets the amount of {@link Item}s in this {@link ItemStorage}.
+     */
+    int size();
+
+    /**
+     * Whether this {@link ItemStorage} has no {@link Item}s.
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets an {@link Item} from this {@link ItemStorage}.
+     *
+     * @param id The ID of the {@link Item}.
+     * @return The {@link Item}, <code>null</code> if not found.
+     */
+    Item get(long id);
+
+    /**
+     * Adds an {@link Item} to this {@link ItemStorage}.
+     *
+     * @param item The {@link Item} to add.
+     * @return Whether the {@link Item} was added. An {@link Item} will not be added if an {@link Item} with the
+     * same ID already exists in this {@link ItemStorage}.
+     */
+    boolean add(Item item);
+
+    /**
+     * Adds multiple {@link Item}s to this {@link ItemStorage}.
+     *
+     * @param items The {@link Item}s to add, sorted by their ID.
+     * @return The {@link Item}s that were added. An {@link Item} will not be added if an {@link Item} with the
+     * same ID already exists in this {@link ItemStorage} or appears earlier in the batch.
+     */
+    List<Item> addAll(List<Item> items);
+
+    /**
+     * Removes an {@link Item} from this {@link ItemStorage}.
+     *
+     * @param id The ID of the {@link Item}.
+     * @return The removed {@link Item}, <code>null</code> if not found.
+     */
+    Item remove(long id);
+
+    /**
+     * Removes multiple {@link Item}s from this {@link ItemStorage}.
+     *
+     * @param ids The IDs of the {@link Item}s to remove, sorted in ascending order.
+     * @return The {@link Item}s that were removed.
+     */
+    List<Item> removeAll(long[] ids);
+
+    /**
+     * Removes all {@link Item}s from this {@link ItemStorage}.
+     */
+    void clear();
+
+    /**
+     * Gets the highest ID of the {@link Item}s in this {@link ItemStorage}.
+     *
+     * @return The ID, 0 if this {@link ItemStorage} is empty.
+     */
+    default long getLastId() {
+        long lastId = 0;
+
+        for (var item : this) {
+            lastId = item.getIdentifier().getID();
+        }
+
+        return lastId;
+    }
+
+    /**
+     * Iterates the {@link Item}s of this {@link ItemStorage} in ascending ID order, starting at an ID.
+     *
+     * @param fromId The ID to start at. The {@link Item} with this ID is included if it exists.
+     * @return An iterator over the {@link Item}s whose ID is at least <code>fromId</code>.
+     */
+    Iterator<Item> iterator(long fromId);
+
+    /**
+     * Gets the {@link Item}s of this {@link ItemStorage} that are of any of the given types.
+     *
+     * @param types The {@link ItemType}s.
+     * @return The {@link Item}s, sorted by their ID.
+     */
+    default List<Item> getItemsOfTypes(Set<ItemType> types) {
+        var result = new ArrayList<Item>();
+
+        for (var item : this) {
+            if (types.contains(item.getIdentifier().getType())) {
+                result.add(item);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the {@link Item}s of this {@link ItemStorage} that are within every one of a set of {@link ItemRange}s,
+     * for storages that can do so without visiting every {@link Item}.
+     *
+     * @param types The {@link ItemType}s the {@link Item}s must be of, empty for any type.
+     * @param ranges The {@link ItemRange}s.
+     * @return The {@link Item}s, sorted by their ID. <code>null</code> if this {@link ItemStorage} would have to
+     * visit every {@link Item}, in which case the caller is better off filtering them itself.
+     */
+    default List<Item> getItemsInRanges(Set<ItemType> types, Collection<ItemRange> ranges) {
+        return null;
+    }
+
+    /**
+     * Gets the amount of {@link Item}s of a type in this {@link ItemStorage}.
+     *
+     * @param type The {@link ItemType}.
+     * @return The amount of {@link Item}s.
+     */
+    int countOf(ItemType type);
+
+    /**
+     * Sets the {@link ItemListener} of every {@link Item} in this {@link ItemStorage}.
+     * <p>
+     * The listener is attached to {@link Item}s as they are added (or materialized, for storages that do not keep
+     * {@link Item} objects around), and detached from {@link Item}s as they are removed.
+     * </p>
+     *
+     * @param listener The {@link ItemListener}.
+     */
+    void setListener(ItemListener listener);
+
+    /**
+     * Whether this {@link ItemStorage} keeps its own copy of the data of its {@link Item}s, and therefore needs
+     * to be {@link #refresh(Item) refreshed} whenever the data of a stored {@link Item} changes.
+     * <p>
+     * The copy is refreshed before the owning {@link InventoryManager} next reads it, unless this
+     * {@link ItemStorage} {@link #writesThrough() writes through}.
+     * </p>
+     */
+    default boolean mirrorsItemData() {
+        return false;
+    }
+
+    /**
+     * Whether changes to the data of stored {@link Item}s must reach the copy of this {@link ItemStorage} as soon
+     * as they are made, rather than before the copy is next read, for storages that outlive the process.
+     */
+    default boolean writesThrough() {
+        return false;
+    }
+
+    /**
+     * Whether {@link #get(long)} may run while another thread changes this {@link ItemStorage}, provided that its
+     * result is discarded if a change did happen. Storages whose lookups change the storage themselves do not
+     * support that.
+     */
+    default boolean supportsOptimisticReads() {
+        return true;
+    }
+
+    /**
+     * Refreshes the copy of the data of a stored {@link Item}.
+     *
+     * @param item The {@link Item} whose data has changed.
+     */
+    default void refresh(Item item) {}
+
+    /**
+     * Refreshes the copy of the stock of a stored {@link Item}, for storages that {@link #writesThrough() write
+     * through}.
+     * <p>
+     * Stock changes far more often than any other data, so unlike {@link #refresh(Item)}, this may be called by
+     * several threads at once while the owning {@link InventoryManager} only holds its shared lock. The copy must
+     * end up at the latest stock even if calls for the same {@link Item} race.
+     * </p>
+     *
+     * @param item The {@link Item} whose stock has changed. It must still be stored in this {@link ItemStorage}.
+     */
+    default void refreshStock(Item item) {}
+
+    /**
+     * Gets the ID high-water mark that was last persisted with this {@link ItemStorage}.
+     *
+     * @return The high-water mark, 0 if this {@link ItemStorage} does not persist one.
+     */
+    default long getIdHighWaterMark() {
+        return 0;
+    }
+
+    /**
+     * Persists the ID high-water mark of the {@link src.inventory.IdAllocator} that gives out IDs for this
+     * {@link ItemStorage}, so that IDs are not repeated once the storage is reopened. Storages that do not outlive
+     * the process ignore it.
+     *
+     * @param highWaterMark The high-water mark.
+     */
+    default void setIdHighWaterMark(long highWaterMark) {}
+}
@@ -0,0 +1,743 @@
+package src.inventory.storage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import src.item.Item;
+
+/**
+ * An ordered store of {@link Item}s keyed by their ID, implemented as a B+-tree.
+ * <p>
+ * {@link Item}s are kept in leaf nodes sorted by ID, while branch nodes only hold separator IDs that guide a
+ * lookup to the correct leaf. As every node holds at most {@link #maxNodeSize} entries, inserting, removing, and
+ * looking up an {@link Item} only visits O(log n) nodes and never shifts more than one node's worth of entries,
+ * no matter how many {@link Item}s are stored.
+ * </p>
+ * <p>
+ * Iterating over this tree yields the {@link Item}s in ascending ID order.
+ * </p>
+ */
+public class ItemTree implements Iterable<Item> {
+    private static final int maxNodeSize = 64;
+    private static final int minNodeSize = maxNodeSize / 2;
+
+    private Node root = new Leaf();
+    private int size;
+
+    // The separator ID of the node that was split off in the last insertion.
+    private long splitKey;
+
+    /**
+     * Gets the amount of {@link Item}s in this {@link ItemTree}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether this {@link ItemTree} has no {@link Item}s.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets an {@link Item} from this {@link ItemTree}.
+     *
+     * @param id The ID of the {@link Item}.
+     * @return The {@link Item}, <code>null</code> if not found.
+     */
+    public Item get(long id) {
+        var node = root;
+
+        while (node instanceof Branch branch) {
+            node = branch.children[branch.childIndex(id)];
+        }
+
+        var leaf = (Leaf) node;
+        int index = leaf.indexOf(id);
+
+        return index >= 0 ? leaf.items[index] : null;
+    }
+
+    /**
+     * Adds an {@link Item} to this {@link ItemTree}.
+     *
+     * @param item The {@link Item} to add.
+     * @return Whether the {@link Item} was added. An {@link Item} will not be added if an {@link Item} with the
+     * same ID already exists in this {@link ItemTree}.
+     */
+    public boolean add(Item item) {
+        int oldSize = size;
+        var split = insert(root, item.getIdentifier().getID(), item);
+
+        if (split != null) {
+            // The root was split, so the tree grows by one level.
+            var newRoot = new Branch();
+
+            newRoot.children[0] = root;
+            newRoot.children[1] = split;
+            newRoot.keys[0] = splitKey;
+            newRoot.size = 2;
+
+            root = newRoot;
+        }
+
+        return size > oldSize;
+    }
+
+    /**
+     * Removes an {@link Item} from this {@link ItemTree}.
+     *
+     * @param id The ID of the {@link Item}.
+     * @return The removed {@link Item}, <code>null</code> if not found.
+     */
+    public Item remove(long id) {
+        var removed = delete(root, id);
+
+        if (root instanceof Branch branch && branch.size == 1) {
+            // The root only has one child left, so the tree shrinks by one level.
+            root = branch.children[0];
+        }
+
+        return removed;
+    }
+
+    /**
+     * Adds multiple {@link Item}s to this {@link ItemTree}.
+     * <p>
+     * When the batch is large compared to this {@link ItemTree}, the batch is merged with the existing
+     * {@link Item}s in a single linear pass and the tree is rebuilt bottom-up from the merged run, instead
+     * of inserting every {@link Item} separately.
+     * </p>
+     *
+     * @param items The {@link Item}s to add, sorted by their ID.
+     * @return The {@link Item}s that were added. An {@link Item} will not be added if an {@link Item} with the
+     * same ID already exists in this {@link ItemTree} or appears earlier in the batch.
+     */
+    public List<Item> addAll(List<Item> items) {
+        var added = new ArrayList<Item>(items.size());
+
+        if (!shouldMerge(items.size())) {
+            for (var item : items) {
+                if (add(item)) {
+                    added.add(item);
+                }
+            }
+
+            return added;
+        }
+
+        var merged = new Item[size + items.size()];
+        int count = 0;
+        var existing = iterator();
+        var next = existing.hasNext() ? existing.next() : null;
+
+        for (var item : items) {
+            long id = item.getIdentifier().getID();
+
+            while (next != null && next.getIdentifier().getID() < id) {
+                merged[count++] = next;
+                next = existing.hasNext() ? existing.next() : null;
+            }
+
+            boolean exists = next != null && next.getIdentifier().getID() == id;
+            boolean repeated = count > 0 && merged[count - 1].getIdentifier().getID() == id;
+
+            if (!exists && !repeated) {
+                merged[count++] = item;
+                added.add(item);
+            }
+        }
+
+        while (next != null) {
+            merged[count++] = next;
+            next = existing.hasNext() ? existing.next() : null;
+        }
+
+        build(merged, count);
+
+        return added;
+    }
+
+    /**
+     * Removes multiple {@link Item}s from this {@link ItemTree}.
+     * <p>
+     * When the batch is large compared to this {@link ItemTree}, the remaining {@link Item}s are collected in a
+     * single linear pass and the tree is rebuilt bottom-up from them, instead of removing every {@link Item}
+     * separately.
+     * </p>
+     *
+     * @param ids The IDs of the {@link Item}s to remove, sorted in ascending order.
+     * @return The {@link Item}s that were removed.
+     */
+    public List<Item> removeAll(long[] ids) {
+        var removed = new ArrayList<Item>(Math.min(ids.length, size));
+
+        if (!shouldMerge(ids.length)) {
+            for (long id : ids) {
+                var item = remove(id);
+
+                if (item != null) {
+                    removed.add(item);
+                }
+            }
+
+            return removed;
+        }
+
+        var remaining = new Item[size];
+        int count = 0;
+        int index = 0;
+
+        for (var item : this) {
+            long id = item.getIdentifier().getID();
+
+            while (index < ids.length && ids[index] < id) {
+                ++index;
+            }
+
+            if (index < ids.length && ids[index] == id) {
+                removed.add(item);
+            } else {
+                remaining[count++] = item;
+            }
+        }
+
+        build(remaining, count);
+
+        return removed;
+    }
+
+    /**
+     * Removes all {@link Item}s from this {@link ItemTree}.
+     */
+    public void clear() {
+        root = new Leaf();
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return new TreeIterator();
+    }
+
+    /**
+     * Iterates the {@link Item}s of this {@link ItemTree} in ascending ID order, starting at an ID.
+     *
+     * @param fromId The ID to start at. The {@link Item} with this ID is included if it exists.
+     * @return An iterator over the {@link Item}s whose ID is at least <code>fromId</code>.
+     */
+    public Iterator<Item> iterator(long fromId) {
+        return new TreeIterator(fromId);
+    }
+
+    /**
+     * Determines whether a batch should be merged in a linear pass rather than applied one entry at a time.
+     *
+     * @param batchSize The size of the batch.
+     * @return <code>true</code> if a linear merge is cheaper than <code>batchSize</code> tree operations.
+     */
+    private boolean shouldMerge(int batchSize) {
+        int height = 64 - Long.numberOfLeadingZeros(size);
+
+        return (long) batchSize * height >= size;
+    }
+
+    /**
+     * Replaces the contents of this {@link ItemTree} by building it bottom-up from a sorted run of {@link Item}s.
+     * <p>
+     * Entries are spread evenly over as few nodes as possible, so every node except the root ends up with at
+     * least {@link #minNodeSize} entries.
+     * </p>
+     *
+     * @param items The {@link Item}s, sorted by their ID without duplicates.
+     * @param count The amount of {@link Item}s to take from <code>items</code>.
+     */
+    private void build(Item[] items, int count) {
+        size = count;
+
+        if (count <= maxNodeSize) {
+            var leaf = new Leaf();
+
+            for (int i = 0; i < count; ++i) {
+                leaf.keys[i] = items[i].getIdentifier().getID();
+                leaf.items[i] = items[i];
+            }
+
+            leaf.size = count;
+            root = leaf;
+
+            return;
+        }
+
+        int nodeCount = (count + maxNodeSize - 1) / maxNodeSize;
+        var nodes = new Node[nodeCount];
+        var firstKeys = new long[nodeCount];
+
+        for (int n = 0, start = 0; n < nodeCount; ++n) {
+            // Spread the remainder over the first nodes so that the sizes differ by at most one.
+            int nodeSize = count / nodeCount + (n < count % nodeCount ? 1 : 0);
+            var leaf = new Leaf();
+
+            for (int i = 0; i < nodeSize; ++i) {
+                leaf.keys[i] = items[start + i].getIdentifier().getID();
+                leaf.items[i] = items[start + i];
+            }
+
+            leaf.size = nodeSize;
+            nodes[n] = leaf;
+            firstKeys[n] = leaf.keys[0];
+            start += nodeSize;
+        }
+
+        // Keep grouping the nodes of a level under new branches until a single root remains.
+        while (nodeCount > 1) {
+            int parentCount = (nodeCount + maxNodeSize - 1) / maxNodeSize;
+            var parents = new Node[parentCount];
+            var parentFirstKeys = new long[parentCount];
+
+            for (int n = 0, start = 0; n < parentCount; ++n) {
+                int branchSize = nodeCount / parentCount + (n < nodeCount % parentCount ? 1 : 0);
+                var branch = new Branch();
+
+                for (int i = 0; i < branchSize; ++i) {
+                    branch.children[i] = nodes[start + i];
+
+                    if (i > 0) {
+                        branch.keys[i - 1] = firstKeys[start + i];
+                    }
+                }
+
+                branch.size = branchSize;
+                parents[n] = branch;
+                parentFirstKeys[n] = firstKeys[start];
+                start += branchSize;
+            }
+
+            nodes = parents;
+            firstKeys = parentFirstKeys;
+            nodeCount = parentCount;
+        }
+
+        root = nodes[0];
+    }
+
+    /**
+     * Inserts an {@link Item} into a subtree.
+     *
+     * @param node The root of the subtree.
+     * @param id The ID of the {@link Item}.
+     * @param item The {@link Item}.
+     * @return The node that was split off from <code>node</code>, <code>null</code> if <code>node</code> was not split.
+     */
+    private Node insert(Node node, long id, Item item) {
+        if (node instanceof Leaf leaf) {
+            int index = leaf.indexOf(id);
+
+            if (index >= 0) {
+                // The item already exists.
+                return null;
+            }
+
+            index = -index - 1;
+
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+            System.arraycopy(leaf.items, index, leaf.items, index + 1, leaf.size - index);
+
+            leaf.keys[index] = id;
+            leaf.items[index] = item;
+            ++leaf.size;
+            ++size;
+
+            return leaf.size > maxNodeSize ? splitLeaf(leaf) : null;
+        }
+
+        var branch = (Branch) node;
+        int index = branch.childIndex(id);
+        var split = insert(branch.children[index], id, item);
+
+        if (split == null) {
+            return null;
+        }
+
+        // Insert the split node right after the child it was split from.
+        System.arraycopy(branch.keys, index, branch.keys, index + 1, branch.size - 1 - index);
+        System.arraycopy(branch.children, index + 1, branch.children, index + 2, branch.size - 1 - index);
+
+        branch.keys[index] = splitKey;
+        branch.children[index + 1] = split;
+        ++branch.size;
+
+        return branch.size > maxNodeSize ? splitBranch(branch) : null;
+    }
+
+    /**
+     * Deletes an {@link Item} from a subtree.
+     *
+     * @param node The root of the subtree.
+     * @param id The ID of the {@link Item}.
+     * @return The deleted {@link Item}, <code>null</code> if not found.
+     */
+    private Item delete(Node node, long id) {
+        if (node instanceof Leaf leaf) {
+            int index = leaf.indexOf(id);
+
+            if (index < 0) {
+                return null;
+            }
+
+            var item = leaf.items[index];
+
+            System.arraycopy(leaf.keys, index + 1, leaf.keys, index, leaf.size - index - 1);
+            System.arraycopy(leaf.items, index + 1, leaf.items, index, leaf.size - index - 1);
+
+            leaf.items[--leaf.size] = null;
+            --size;
+
+            return item;
+        }
+
+        var branch = (Branch) node;
+        int index = branch.childIndex(id);
+        var item = delete(branch.children[index], id);
+
+        if (item != null && branch.children[index].size < minNodeSize) {
+            rebalance(branch, index);
+        }
+
+        return item;
+    }
+
+    /**
+     * Moves the upper half of an overflowing {@link Leaf} into a new {@link Leaf}.
+     *
+     * @param leaf The {@link Leaf} to split.
+     * @return The new {@link Leaf}.
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        var right = new Leaf();
+        int mid = leaf.size / 2;
+
+        right.size = leaf.size - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.size);
+        System.arraycopy(leaf.items, mid, right.items, 0, right.size);
+
+        for (int i = mid; i < leaf.size; ++i) {
+            leaf.items[i] = null;
+        }
+
+        leaf.size = mid;
+        splitKey = right.keys[0];
+
+        return right;
+    }
+
+    /**
+     * Moves the upper half of an overflowing {@link Branch} into a new {@link Branch}.
+     *
+     * @param branch The {@link Branch} to split.
+     * @return The new {@link Branch}.
+     */
+    private Branch splitBranch(Branch branch) {
+        var right = new Branch();
+        int mid = branch.size / 2;
+
+        // The separator between both halves moves up to the parent.
+        splitKey = branch.keys[mid - 1];
+
+        right.size = branch.size - mid;
+        System.arraycopy(branch.keys, mid, right.keys, 0, right.size - 1);
+        System.arraycopy(branch.children, mid, right.children, 0, right.size);
+
+        for (int i = mid; i < branch.size; ++i) {
+            branch.children[i] = null;
+        }
+
+        branch.size = mid;
+
+        return right;
+    }
+
+    /**
+     * Restores the minimum size of an underflowing child of a {@link Branch} by either borrowing an entry
+     * from one of its siblings or merging it with one of its siblings.
+     *
+     * @param parent The parent of the child.
+     * @param index The index of the child.
+     */
+    private static void rebalance(Branch parent, int index) {
+        var left = index > 0 ? parent.children[index - 1] : null;
+        var right = index < parent.size - 1 ? parent.children[index + 1] : null;
+
+        if (left != null && left.size > minNodeSize) {
+            borrowFromLeft(parent, index);
+        } else if (right != null && right.size > minNodeSize) {
+            borrowFromRight(parent, index);
+        } else if (left != null) {
+            merge(parent, index - 1);
+        } else if (right != null) {
+            merge(parent, index);
+        }
+    }
+
+    private static void borrowFromLeft(Branch parent, int index) {
+        var child = parent.children[index];
+        var left = parent.children[index - 1];
+
+        if (child instanceof Leaf childLeaf) {
+            var leftLeaf = (Leaf) left;
+
+            System.arraycopy(childLeaf.keys, 0, childLeaf.keys, 1, childLeaf.size);
+            System.arraycopy(childLeaf.items, 0, childLeaf.items, 1, childLeaf.size);
+
+            childLeaf.keys[0] = leftLeaf.keys[leftLeaf.size - 1];
+            childLeaf.items[0] = leftLeaf.items[leftLeaf.size - 1];
+            leftLeaf.items[--leftLeaf.size] = null;
+            ++childLeaf.size;
+
+            parent.keys[index - 1] = childLeaf.keys[0];
+        } else {
+            var childBranch = (Branch) child;
+            var leftBranch = (Branch) left;
+
+            System.arraycopy(childBranch.keys, 0, childBranch.keys, 1, childBranch.size - 1);
+            System.arraycopy(childBranch.children, 0, childBranch.children, 1, childBranch.size);
+
+            childBranch.keys[0] = parent.keys[index - 1];
+            childBranch.children[0] = leftBranch.children[leftBranch.size - 1];
+            ++childBranch.size;
+
+            parent.keys[index - 1] = leftBranch.keys[leftBranch.size - 2];
+            leftBranch.children[--leftBranch.size] = null;
+        }
+    }
+
+    private static void borrowFromRight(Branch parent, int index) {
+        var child = parent.children[index];
+        var right = parent.children[index + 1];
+
+        if (child instanceof Leaf childLeaf) {
+            var rightLeaf = (Leaf) right;
+
+            childLeaf.keys[childLeaf.size] = rightLeaf.keys[0];
+            childLeaf.items[childLeaf.size] = rightLeaf.items[0];
+            ++childLeaf.size;
+
+            System.arraycopy(rightLeaf.keys, 1, rightLeaf.keys, 0, rightLeaf.size - 1);
+            System.arraycopy(rightLeaf.items, 1, rightLeaf.items, 0, rightLeaf.size - 1);
+            rightLeaf.items[--rightLeaf.size] = null;
+
+            parent.keys[index] = rightLeaf.keys[0];
+        } else {
+            var childBranch = (Branch) child;
+            var rightBranch = (Branch) right;
+
+            childBranch.keys[childBranch.size - 1] = parent.keys[index];
+            childBranch.children[childBranch.size] = rightBranch.children[0];
+            ++childBranch.size;
+
+            parent.keys[index] = rightBranch.keys[0];
+
+            System.arraycopy(rightBranch.keys, 1, rightBranch.keys, 0, rightBranch.size - 2);
+            System.arraycopy(rightBranch.children, 1, rightBranch.children, 0, rightBranch.size - 1);
+            rightBranch.children[--rightBranch.size] = null;
+        }
+    }
+
+    /**
+     * Merges two adjacent children of a {@link Branch} into the left one.
+     *
+     * @param parent The parent of both children.
+     * @param index The index of the left child.
+     */
+    private static void merge(Branch parent, int index) {
+        var left = parent.children[index];
+        var right = parent.children[index + 1];
+
+        if (left instanceof Leaf leftLeaf) {
+            var rightLeaf = (Leaf) right;
+
+            System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.size, rightLeaf.size);
+            System.arraycopy(rightLeaf.items, 0, leftLeaf.items, leftLeaf.size, rightLeaf.size);
+            leftLeaf.size += rightLeaf.size;
+        } else {
+            var leftBranch = (Branch) left;
+            var rightBranch = (Branch) right;
+
+            // The separator between both children moves down into the merged branch.
+            leftBranch.keys[leftBranch.size - 1] = parent.keys[index];
+
+            System.arraycopy(rightBranch.keys, 0, leftBranch.keys, leftBranch.size, rightBranch.size - 1);
+            System.arraycopy(rightBranch.children, 0, leftBranch.children, leftBranch.size, rightBranch.size);
+            leftBranch.size += rightBranch.size;
+        }
+
+        // Remove the right child and its separator from the parent.
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.size - index - 2);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.size - index - 2);
+        parent.children[--parent.size] = null;
+    }
+
+    /**
+     * A node in an {@link ItemTree}.
+     */
+    private abstract static class Node {
+        // Nodes have room for one extra entry so that they can overflow before being split.
+        final long[] keys = new long[maxNodeSize + 1];
+        int size;
+    }
+
+    /**
+     * A leaf node, containing {@link Item}s sorted by their ID.
+     */
+    private static final class Leaf extends Node {
+        final Item[] items = new Item[maxNodeSize + 1];
+
+        /**
+         * Gets the index of an ID in this {@link Leaf} using the binary search algorithm.
+         *
+         * @param id The ID.
+         * @return The index of the ID if found, otherwise <code>-(insertion index) - 1</code>.
+         */
+        int indexOf(long id) {
+            int left = 0;
+            int right = size - 1;
+
+            while (left <= right) {
+                int mid = left + (right - left) / 2;
+
+                if (keys[mid] == id) {
+                    return mid;
+                } else if (keys[mid] < id) {
+                    left = mid + 1;
+                } else {
+                    right = mid - 1;
+                }
+            }
+
+            return -left - 1;
+        }
+    }
+
+    /**
+     * A branch node. A branch with <code>size</code> children holds <code>size - 1</code> separator IDs, where
+     * <code>keys[i]</code> is the smallest ID that belongs to <code>children[i + 1]</code>.
+     */
+    private static final class Branch extends Node {
+        final Node[] children = new Node[maxNodeSize + 1];
+
+        /**
+         * Gets the index of the child that an ID belongs to.
+         *
+         * @param id The ID.
+         * @return The index of the child.
+         */
+        int childIndex(long id) {
+            int left = 0;
+            int right = size - 2;
+
+            // Find the first separator that is larger than the ID.
+            while (left <= right) {
+                int mid = left + (right - left) / 2;
+
+                if (keys[mid] <= id) {
+                    left = mid + 1;
+                } else {
+                    right = mid - 1;
+                }
+            }
+
+            return left;
+        }
+    }
+
+    /**
+     * Iterates the {@link Item}s of an {@link ItemTree} in ascending ID order.
+     */
+    private final class TreeIterator implements Iterator<Item> {
+        private final ArrayDeque<Branch> branches = new ArrayDeque<>();
+        private final ArrayDeque<Integer> childIndices = new ArrayDeque<>();
+        private Leaf leaf;
+        private int index;
+
+        TreeIterator() {
+            descend(root);
+        }
+
+        TreeIterator(long fromId) {
+            var node = root;
+
+            // Follow the path to the ID, remembering it so that the iteration can continue past its leaf.
+            while (node instanceof Branch branch) {
+                int childIndex = branch.childIndex(fromId);
+
+                branches.push(branch);
+                childIndices.push(childIndex);
+                node = branch.children[childIndex];
+            }
+
+            leaf = (Leaf) node;
+            index = leaf.indexOf(fromId);
+
+            if (index < 0) {
+                index = -index - 1;
+            }
+
+            if (index == leaf.size) {
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null && index < leaf.size;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            var item = leaf.items[index++];
+
+            if (index == leaf.size) {
+                advance();
+            }
+
+            return item;
+        }
+
+        private void descend(Node node) {
+            while (node instanceof Branch branch) {
+                branches.push(branch);
+                childIndices.push(0);
+                node = branch.children[0];
+            }
+
+            leaf = (Leaf) node;
+            index = 0;
+        }
+
+        private void advance() {
+            while (!branches.isEmpty()) {
+                var branch = branches.peek();
+                int next = childIndices.pop() + 1;
+
+                if (next < branch.size) {
+                    childIndices.push(next);
+                    descend(branch.children[next]);
+                    return;
+                }
+
+                branches.pop();
+            }
+
+            leaf = null;
+        }
+    }
+}
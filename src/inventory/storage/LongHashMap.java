@@ -0,0 +1,228 @@
+package src.inventory.storage;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A hash map with primitive <code>long</code> keys that uses open addressing with linear probing.
+ * <p>
+ * Keys are stored in a plain <code>long</code> array next to their values, so no key is ever boxed and a lookup
+ * usually resolves within the same cache line as the slot it hashes to. A slot is empty when its value is
+ * <code>null</code>, which is why this map does not accept <code>null</code> values.
+ * </p>
+ *
+ * @param <V> The type of the values.
+ */
+public class LongHashMap<V> {
+    private static final int minCapacity = 16;
+    private static final float loadFactor = 0.5f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    public LongHashMap() {
+        this(minCapacity);
+    }
+
+    /**
+     * @param expectedSize The amount of entries this {@link LongHashMap} is expected to hold.
+     */
+    public LongHashMap(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Gets the amount of entries in this {@link LongHashMap}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether this {@link LongHashMap} has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the value that is mapped to a key.
+     *
+     * @param key The key.
+     * @return The value, <code>null</code> if the key is not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        // Read the tables once so that a lookup racing with a resize stays within bounds. The caller is
+        // responsible for validating the result of such a lookup.
+        var keys = this.keys;
+        var values = this.values;
+        int mask = Math.min(keys.length, values.length) - 1;
+
+        for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Whether a key is mapped to a value.
+     *
+     * @param key The key.
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value.
+     *
+     * @param key The key.
+     * @param value The value. Must not be <code>null</code>.
+     * @return The value that was previously mapped to the key, <code>null</code> if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Values of a LongHashMap must not be null.");
+        }
+
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                var previous = (V) values[i];
+                values[i] = value;
+
+                return previous;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value;
+
+        if (++size > keys.length * loadFactor) {
+            resize(keys.length * 2);
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes the mapping of a key.
+     *
+     * @param key The key.
+     * @return The value that was mapped to the key, <code>null</code> if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                break;
+            }
+        }
+
+        if (values[i] == null) {
+            return null;
+        }
+
+        var removed = (V) values[i];
+
+        // Instead of leaving a tombstone, shift back any following entry whose probe sequence passes through
+        // the freed slot, so that lookups never have to skip deleted slots.
+        int gap = i;
+
+        for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+
+            // The entry can fill the gap if its home slot is not cyclically between the gap and itself.
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+
+        values[gap] = null;
+        --size;
+
+        return removed;
+    }
+
+    /**
+     * Performs an action on every value in this {@link LongHashMap}, in no particular order.
+     *
+     * @param action The action. Must not change this {@link LongHashMap}.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (var value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from this {@link LongHashMap}.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldValues[i] == null) {
+                continue;
+            }
+
+            int j = hash(oldKeys[i]) & mask;
+
+            while (values[j] != null) {
+                j = (j + 1) & mask;
+            }
+
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = minCapacity;
+
+        while (capacity * loadFactor < expectedSize) {
+            capacity *= 2;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Scrambles a key so that sequential IDs spread evenly across the table.
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) (h ^ (h >>> 32));
+    }
+}
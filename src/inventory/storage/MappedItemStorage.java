@@ -0,0 +1,792 @@
+package src.inventory.storage;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import src.item.FoodItem;
+import src.item.Item;
+import src.item.ItemListener;
+import src.item.ItemType;
+import src.item.ItemWithVolume;
+import src.item.ItemWithWeight;
+import src.item.KitchenwareItem;
+
+/**
+ * An {@link ItemStorage} that keeps {@link Item}s off the heap, in memory-mapped files.
+ * <p>
+ * Every {@link Item} is stored as a fixed-width record in an item file, sorted by ID, while its strings are
+ * appended to a separate string file that records point into. {@link Item} objects are only decoded from their
+ * record when they are requested, so the heap does not grow with the size of the inventory. Changes made to
+ * a decoded {@link Item} are written back to its record as soon as the owning
+ * {@link src.inventory.InventoryManager} {@link #refresh(Item) refreshes} it. Stock changes are
+ * {@link #refreshStock(Item) written back} without excluding readers or other stock changes.
+ * </p>
+ * <p>
+ * A decoded {@link Item} is remembered for as long as it is reachable, and handed out again whenever its record
+ * is requested, so that every ID has a single {@link Item} at a time, as in the other storages. Otherwise two
+ * callers could change separate copies of the same {@link Item}, and one of the changes would be lost once both
+ * are written back. Decoding therefore changes this storage, which is why {@link #get(long)} does not
+ * {@link #supportsOptimisticReads() support optimistic reads}.
+ * </p>
+ * <p>
+ * Both files are reopened as-is when a {@link MappedItemStorage} is created over an existing directory, so a
+ * restart does not need to reload the inventory.
+ * </p>
+ * <p>
+ * Removed records are only marked as such and are reclaimed once they outnumber the live records. Strings that
+ * are replaced by an edit are not reclaimed until the storage is cleared.
+ * </p>
+ * <p>
+ * Reorder levels do not fit into a record, so they are kept in a third file with one <code>long</code> per record
+ * slot. Directories that were created before reorder levels existed do not have that file yet, in which case it
+ * is created empty and every reorder level reads as 0.
+ * </p>
+ */
+public class MappedItemStorage implements ItemStorage, AutoCloseable {
+    private static final int magic = 0x494E5631;
+    private static final int version = 1;
+
+    private static final int headerSize = 64;
+    private static final int recordSize = 64;
+
+    // Header layout.
+    private static final int slotCountOffset = 8;
+    private static final int liveCountOffset = 16;
+    private static final int stringsEndOffset = 24;
+    // Directories that were created before the mark was persisted read it as 0.
+    private static final int idHighWaterMarkOffset = 32;
+
+    // Record layout.
+    private static final int idOffset = 0;
+    private static final int liveOffset = 8;
+    private static final int typeOffset = 9;
+    private static final int priceOffset = 12;
+    private static final int stockOffset = 16;
+    private static final int caloriesOffset = 24;
+    private static final int weightOffset = 28;
+    private static final int volumeOffset = 32;
+    private static final int nameOffset = 40;
+    private static final int descriptionOffset = 48;
+    private static final int materialOffset = 56;
+
+    // A string offset denoting an empty string, which is not stored in the string file.
+    private static final long emptyString = -1;
+
+    private final MappedRegion records;
+    private final MappedRegion strings;
+    private final MappedRegion levels;
+    private ItemListener listener;
+
+    // The decoded items that are still reachable, by their ID. Guarded by its own monitor, because readers that
+    // share the read lock of the owning InventoryManager decode items concurrently.
+    private final LongHashMap<DecodedItem> decoded = new LongHashMap<>();
+    private final ReferenceQueue<Item> collected = new ReferenceQueue<>();
+
+    // Stock is written through by several threads at once, so the writes of each item are ordered by one of
+    // these locks.
+    private final Object[] stockLocks = new Object[64];
+
+    // Counted from the type bytes of the records the first time they are needed.
+    private long[] typeCounts;
+
+    private long slotCount;
+    private long liveCount;
+    private long stringsEnd;
+
+    /**
+     * Opens a {@link MappedItemStorage} in a directory, creating its files if they do not exist yet.
+     *
+     * @param directory The directory to keep the files of this {@link MappedItemStorage} in.
+     * @throws IOException If the files could not be opened, or are not files of a {@link MappedItemStorage}.
+     */
+    public MappedItemStorage(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        records = new MappedRegion(directory.resolve("items.dat"));
+        strings = new MappedRegion(directory.resolve("strings.dat"));
+        levels = new MappedRegion(directory.resolve("levels.dat"));
+
+        int fileMagic = records.getInt(0);
+
+        if (fileMagic == 0) {
+            records.putInt(0, magic);
+            records.putInt(4, version);
+            writeHeader();
+        } else if (fileMagic != magic || records.getInt(4) != version) {
+            close();
+            throw new IOException("The directory does not contain a supported item storage.");
+        }
+
+        slotCount = records.getLong(slotCountOffset);
+        liveCount = records.getLong(liveCountOffset);
+        stringsEnd = records.getLong(stringsEndOffset);
+
+        levels.ensureCapacity(levelPosition(slotCount));
+
+        for (int i = 0; i < stockLocks.length; ++i) {
+            stockLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) liveCount;
+    }
+
+    @Override
+    public Item get(long id) {
+        long slot = indexOf(id);
+
+        return slot >= 0 && isLive(slot) ? itemAt(slot) : null;
+    }
+
+    @Override
+    public boolean add(Item item) {
+        long slot = indexOf(item.getIdentifier().getID());
+
+        if (slot >= 0) {
+            if (isLive(slot)) {
+                return false;
+            }
+
+            // Reuse the record of a removed item with the same ID.
+            write(slot, item);
+        } else {
+            slot = -slot - 1;
+            records.ensureCapacity(recordPosition(slotCount + 1));
+            levels.ensureCapacity(levelPosition(slotCount + 1));
+
+            // IDs are usually handed out incrementally, in which case the record is appended and nothing is moved.
+            for (long i = slotCount; i > slot; --i) {
+                copyRecord(i - 1, i);
+            }
+
+            write(slot, item);
+            ++slotCount;
+        }
+
+        countType(item.getIdentifier().getType(), 1);
+        ++liveCount;
+        writeHeader();
+        remember(item);
+        item.setListener(listener);
+
+        return true;
+    }
+
+    @Override
+    public List<Item> addAll(List<Item> items) {
+        var added = new ArrayList<Item>(items.size());
+        long lastId = 0;
+
+        for (var item : items) {
+            long id = item.getIdentifier().getID();
+            boolean repeated = !added.isEmpty() && lastId == id;
+
+            if (!repeated) {
+                long slot = indexOf(id);
+
+                if (slot < 0 || !isLive(slot)) {
+                    added.add(item);
+                    lastId = id;
+                }
+            }
+        }
+
+        if (added.isEmpty()) {
+            return added;
+        }
+
+        // Merge the batch with the existing records from the back, so that every record is moved at most once.
+        compact();
+        records.ensureCapacity(recordPosition(slotCount + added.size()));
+        levels.ensureCapacity(levelPosition(slotCount + added.size()));
+
+        long existing = slotCount - 1;
+        long target = slotCount + added.size() - 1;
+
+        for (int i = added.size() - 1; i >= 0; --i, --target) {
+            long id = added.get(i).getIdentifier().getID();
+
+            while (existing >= 0 && records.getLong(recordPosition(existing) + idOffset) > id) {
+                copyRecord(existing--, target--);
+            }
+
+            write(target, added.get(i));
+            countType(added.get(i).getIdentifier().getType(), 1);
+        }
+
+        slotCount += added.size();
+        liveCount += added.size();
+        writeHeader();
+
+        for (var item : added) {
+            remember(item);
+            item.setListener(listener);
+        }
+
+        return added;
+    }
+
+    @Override
+    public Item remove(long id) {
+        long slot = indexOf(id);
+
+        if (slot < 0 || !isLive(slot)) {
+            return null;
+        }
+
+        var item = itemAt(slot);
+
+        kill(slot);
+        compactIfSparse();
+        forget(id);
+
+        item.setListener(null);
+
+        return item;
+    }
+
+    @Override
+    public List<Item> removeAll(long[] ids) {
+        var removed = new ArrayList<Item>(Math.min(ids.length, size()));
+
+        for (long id : ids) {
+            long slot = indexOf(id);
+
+            if (slot >= 0 && isLive(slot)) {
+                var item = itemAt(slot);
+
+                item.setListener(null);
+                removed.add(item);
+                kill(slot);
+                forget(id);
+            }
+        }
+
+        compactIfSparse();
+
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        slotCount = 0;
+        liveCount = 0;
+        stringsEnd = 0;
+        typeCounts = null;
+
+        writeHeader();
+
+        synchronized (decoded) {
+            decoded.forEachValue(reference -> {
+                var item = reference.get();
+
+                if (item != null) {
+                    item.setListener(null);
+                }
+            });
+            decoded.clear();
+        }
+    }
+
+    @Override
+    public long getLastId() {
+        // Only the IDs of the records are read, so no item is decoded.
+        for (long slot = slotCount - 1; slot >= 0; --slot) {
+            if (isLive(slot)) {
+                return records.getLong(recordPosition(slot) + idOffset);
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    public List<Item> getItemsOfTypes(Set<ItemType> types) {
+        int mask = 0;
+
+        for (var type : types) {
+            mask |= 1 << type.ordinal();
+        }
+
+        var result = new ArrayList<Item>();
+
+        // Only the type byte of each record is read, so non-matching records are never decoded.
+        for (long slot = 0; slot < slotCount; ++slot) {
+            long position = recordPosition(slot);
+
+            if (records.getByte(position + liveOffset) != 0 && (mask & (1 << records.getByte(position + typeOffset))) != 0) {
+                result.add(itemAt(slot));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int countOf(ItemType type) {
+        if (typeCounts == null) {
+            typeCounts = new long[ItemType.values().length];
+
+            for (long slot = 0; slot < slotCount; ++slot) {
+                long position = recordPosition(slot);
+
+                if (records.getByte(position + liveOffset) != 0) {
+                    ++typeCounts[records.getByte(position + typeOffset)];
+                }
+            }
+        }
+
+        return (int) typeCounts[type.ordinal()];
+    }
+
+    @Override
+    public void setListener(ItemListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public long getIdHighWaterMark() {
+        return records.getLong(idHighWaterMarkOffset);
+    }
+
+    @Override
+    public void setIdHighWaterMark(long highWaterMark) {
+        records.putLong(idHighWaterMarkOffset, highWaterMark);
+    }
+
+    @Override
+    public boolean mirrorsItemData() {
+        return true;
+    }
+
+    @Override
+    public boolean writesThrough() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsOptimisticReads() {
+        return false;
+    }
+
+    @Override
+    public void refresh(Item item) {
+        long slot = indexOf(item.getIdentifier().getID());
+
+        // Only the item that is handed out for the record may change it, not one that was removed in the meantime.
+        if (slot >= 0 && isLive(slot) && remembered(item.getIdentifier().getID()) == item) {
+            write(slot, item);
+            writeHeader();
+        }
+    }
+
+    @Override
+    public void refreshStock(Item item) {
+        long id = item.getIdentifier().getID();
+        long slot = indexOf(id);
+
+        if (slot < 0 || !isLive(slot)) {
+            return;
+        }
+
+        // The stock is read while the lock is held, so whichever thread writes last writes the latest stock, even
+        // if the adjustments were made in a different order than their writes. Only the records of items that
+        // share a lock wait for each other.
+        synchronized (stockLocks[(int) (id & (stockLocks.length - 1))]) {
+            records.putLong(recordPosition(slot) + stockOffset, item.getStock());
+        }
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return iteratorFromSlot(0);
+    }
+
+    @Override
+    public Iterator<Item> iterator(long fromId) {
+        long start = indexOf(fromId);
+
+        return iteratorFromSlot(start >= 0 ? start : -start - 1);
+    }
+
+    private Iterator<Item> iteratorFromSlot(long startSlot) {
+        return new Iterator<>() {
+            private long slot = nextLive(startSlot);
+
+            @Override
+            public boolean hasNext() {
+                return slot < slotCount;
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                var item = itemAt(slot);
+                slot = nextLive(slot + 1);
+
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Writes all changes made to this {@link MappedItemStorage} to its files.
+     */
+    public void flush() {
+        records.force();
+        strings.force();
+        levels.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            records.close();
+        } finally {
+            try {
+                strings.close();
+            } finally {
+                levels.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of an ID using the binary search algorithm over the records.
+     * <p>
+     * Removed records keep their ID until they are reclaimed, so the records stay sorted by ID.
+     * </p>
+     *
+     * @param id The ID.
+     * @return The slot of the ID if found, otherwise <code>-(insertion slot) - 1</code>.
+     */
+    private long indexOf(long id) {
+        long left = 0;
+        long right = slotCount - 1;
+
+        while (left <= right) {
+            long mid = left + (right - left) / 2;
+            long midId = records.getLong(recordPosition(mid) + idOffset);
+
+            if (midId == id) {
+                return mid;
+            } else if (midId < id) {
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+
+        return -left - 1;
+    }
+
+    private boolean isLive(long slot) {
+        return records.getByte(recordPosition(slot) + liveOffset) != 0;
+    }
+
+    private long nextLive(long slot) {
+        while (slot < slotCount && !isLive(slot)) {
+            ++slot;
+        }
+
+        return slot;
+    }
+
+    private void kill(long slot) {
+        countType(ItemType.values()[records.getByte(recordPosition(slot) + typeOffset)], -1);
+        records.putByte(recordPosition(slot) + liveOffset, (byte) 0);
+        --liveCount;
+        writeHeader();
+    }
+
+    /**
+     * Reclaims removed records once they outnumber the live records.
+     */
+    private void compactIfSparse() {
+        if (slotCount - liveCount > Math.max(liveCount, 1024)) {
+            compact();
+        }
+    }
+
+    /**
+     * Reclaims all removed records by moving the live records towards the front.
+     */
+    private void compact() {
+        if (slotCount == liveCount) {
+            return;
+        }
+
+        long target = 0;
+
+        for (long slot = 0; slot < slotCount; ++slot) {
+            if (isLive(slot)) {
+                if (slot != target) {
+                    copyRecord(slot, target);
+                }
+
+                ++target;
+            }
+        }
+
+        slotCount = target;
+        writeHeader();
+    }
+
+    /**
+     * Gets the {@link Item} of a record, decoding it only if it is not reachable anymore.
+     *
+     * @param slot The slot of the record.
+     * @return The {@link Item}.
+     */
+    private Item itemAt(long slot) {
+        long id = records.getLong(recordPosition(slot) + idOffset);
+        var item = remembered(id);
+
+        if (item != null) {
+            return item;
+        }
+
+        // Decode outside of the monitor, so that concurrent readers only wait for each other on the map itself.
+        item = read(slot);
+
+        synchronized (decoded) {
+            var existing = remembered(id);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            decoded.put(id, new DecodedItem(item, collected));
+        }
+
+        return item;
+    }
+
+    /**
+     * Gets the decoded {@link Item} of an ID, if it is still reachable.
+     *
+     * @param id The ID.
+     * @return The {@link Item}, <code>null</code> if there is none.
+     */
+    private Item remembered(long id) {
+        synchronized (decoded) {
+            expungeCollected();
+
+            var reference = decoded.get(id);
+
+            return reference != null ? reference.get() : null;
+        }
+    }
+
+    /**
+     * Makes an {@link Item} that was just stored the one that is handed out for its ID.
+     */
+    private void remember(Item item) {
+        synchronized (decoded) {
+            expungeCollected();
+            decoded.put(item.getIdentifier().getID(), new DecodedItem(item, collected));
+        }
+    }
+
+    private void forget(long id) {
+        synchronized (decoded) {
+            decoded.remove(id);
+        }
+    }
+
+    /**
+     * Drops the entries of {@link Item}s that have been garbage collected. The caller must hold the monitor of
+     * {@link #decoded}.
+     */
+    private void expungeCollected() {
+        for (var reference = collected.poll(); reference != null; reference = collected.poll()) {
+            long id = ((DecodedItem) reference).id;
+
+            // The ID may have been decoded again since.
+            if (decoded.get(id) == reference) {
+                decoded.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Decodes the {@link Item} of a record.
+     *
+     * @param slot The slot of the record.
+     * @return The {@link Item}.
+     */
+    private Item read(long slot) {
+        long position = recordPosition(slot);
+        var type = ItemType.values()[records.getByte(position + typeOffset)];
+        var item = Item.create(records.getLong(position + idOffset), type);
+        var identifier = item.getIdentifier();
+
+        identifier.setName(readString(records.getLong(position + nameOffset)));
+        identifier.setDescription(readString(records.getLong(position + descriptionOffset)));
+        item.setStock(records.getLong(position + stockOffset));
+        item.setReorderLevel(levels.getLong(levelPosition(slot)));
+
+        // New items have no price yet, which setPrice does not accept.
+        float price = records.getFloat(position + priceOffset);
+
+        if (price > 0) {
+            item.setPrice(price);
+        }
+
+        if (item instanceof FoodItem foodItem) {
+            foodItem.setCalories(records.getFloat(position + caloriesOffset));
+        }
+
+        if (item instanceof ItemWithWeight weightItem) {
+            weightItem.setWeight(records.getFloat(position + weightOffset));
+        }
+
+        if (item instanceof ItemWithVolume volumeItem) {
+            volumeItem.setVolume(records.getFloat(position + volumeOffset));
+        }
+
+        if (item instanceof KitchenwareItem kitchenwareItem) {
+            kitchenwareItem.setMaterial(readString(records.getLong(position + materialOffset)));
+        }
+
+        item.setListener(listener);
+
+        return item;
+    }
+
+    /**
+     * Encodes an {@link Item} into a record.
+     *
+     * @param slot The slot of the record.
+     * @param item The {@link Item}.
+     */
+    private void write(long slot, Item item) {
+        long position = recordPosition(slot);
+        var identifier = item.getIdentifier();
+
+        // A record that is being reused or refreshed may already hold some of the strings.
+        boolean reuseStrings = slot < slotCount && records.getLong(position + idOffset) == identifier.getID();
+
+        records.putLong(position + idOffset, identifier.getID());
+        records.putByte(position + liveOffset, (byte) 1);
+        records.putByte(position + typeOffset, (byte) identifier.getType().ordinal());
+        records.putFloat(position + priceOffset, item.getPrice());
+        records.putLong(position + stockOffset, item.getStock());
+        levels.putLong(levelPosition(slot), item.getReorderLevel());
+        records.putFloat(position + caloriesOffset, item instanceof FoodItem foodItem ? foodItem.getCalories() : 0);
+        records.putFloat(position + weightOffset, item instanceof ItemWithWeight weightItem ? weightItem.getWeight() : 0);
+        records.putFloat(position + volumeOffset, item instanceof ItemWithVolume volumeItem ? volumeItem.getVolume() : 0);
+
+        writeString(position + nameOffset, identifier.getName(), reuseStrings);
+        writeString(position + descriptionOffset, identifier.getDescription(), reuseStrings);
+        writeString(position + materialOffset, item instanceof KitchenwareItem kitchenwareItem ? kitchenwareItem.getMaterial() : "", reuseStrings);
+    }
+
+    private void countType(ItemType type, int delta) {
+        if (typeCounts != null) {
+            typeCounts[type.ordinal()] += delta;
+        }
+    }
+
+    private void copyRecord(long fromSlot, long toSlot) {
+        long from = recordPosition(fromSlot);
+        long to = recordPosition(toSlot);
+
+        for (int i = 0; i < recordSize; i += Long.BYTES) {
+            records.putLong(to + i, records.getLong(from + i));
+        }
+
+        levels.putLong(levelPosition(toSlot), levels.getLong(levelPosition(fromSlot)));
+    }
+
+    private String readString(long offset) {
+        if (offset == emptyString) {
+            return "";
+        }
+
+        int length = strings.getInt(offset);
+
+        if (length < 0 || length > MappedRegion.segmentRemaining(offset + Integer.BYTES)) {
+            throw new IllegalStateException("Corrupted string in item storage.");
+        }
+
+        var bytes = new byte[length];
+        strings.get(offset + Integer.BYTES, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stores a string and points a field of a record to it.
+     *
+     * @param field The position of the field in the record file.
+     * @param value The string.
+     * @param reuse Whether the field may already point to an equal string, in which case it is kept.
+     */
+    private void writeString(long field, String value, boolean reuse) {
+        if (value.isEmpty()) {
+            records.putLong(field, emptyString);
+            return;
+        }
+
+        if (reuse && readString(records.getLong(field)).equals(value)) {
+            return;
+        }
+
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        long offset = stringsEnd;
+
+        // Never let a string straddle two segments.
+        if (MappedRegion.segmentRemaining(offset) < Integer.BYTES + bytes.length) {
+            offset += MappedRegion.segmentRemaining(offset);
+        }
+
+        strings.ensureCapacity(offset + Integer.BYTES + bytes.length);
+        strings.putInt(offset, bytes.length);
+        strings.put(offset + Integer.BYTES, bytes);
+
+        stringsEnd = offset + Integer.BYTES + bytes.length;
+        records.putLong(field, offset);
+    }
+
+    private void writeHeader() {
+        records.putLong(slotCountOffset, slotCount);
+        records.putLong(liveCountOffset, liveCount);
+        records.putLong(stringsEndOffset, stringsEnd);
+    }
+
+    /**
+     * A weak reference to a decoded {@link Item} that remembers its ID, so that its entry can be found once the
+     * {@link Item} has been garbage collected.
+     */
+    private static final class DecodedItem extends WeakReference<Item> {
+        private final long id;
+
+        DecodedItem(Item item, ReferenceQueue<Item> queue) {
+            super(item, queue);
+            id = item.getIdentifier().getID();
+        }
+    }
+
+    private static long recordPosition(long slot) {
+        return headerSize + slot * recordSize;
+    }
+
+    private static long levelPosition(long slot) {
+        return slot * Long.BYTES;
+    }
+}
@@ -0,0 +1,147 @@
+package src.inventory.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A growable region of a file that is mapped into memory.
+ * <p>
+ * A single {@link MappedByteBuffer} can only address 2 GiB, so the region is mapped as a series of segments
+ * that are addressed with a <code>long</code> position. Callers must make sure that a value never straddles
+ * the boundary between two segments, which is the case as long as values are written at positions that are
+ * aligned to their size, or within blocks that were placed with {@link #segmentRemaining(long)} in mind.
+ * </p>
+ */
+final class MappedRegion implements AutoCloseable {
+    static final int segmentShift = 30;
+    static final long segmentSize = 1L << segmentShift;
+
+    private static final long minCapacity = 1L << 16;
+
+    private final FileChannel channel;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private long capacity;
+
+    /**
+     * Opens a {@link MappedRegion}, creating its file if it does not exist yet.
+     *
+     * @param path The path to the file.
+     */
+    MappedRegion(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        map(Math.max(channel.size(), minCapacity));
+    }
+
+    /**
+     * Makes sure that this {@link MappedRegion} can address at least a given amount of bytes, growing the file
+     * if necessary.
+     *
+     * @param bytes The amount of bytes.
+     */
+    void ensureCapacity(long bytes) {
+        if (bytes <= capacity) {
+            return;
+        }
+
+        try {
+            map(Math.max(bytes, capacity * 2));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the amount of bytes left in the segment containing a position.
+     *
+     * @param position The position.
+     */
+    static long segmentRemaining(long position) {
+        return segmentSize - (position & (segmentSize - 1));
+    }
+
+    byte getByte(long position) {
+        return segments[segment(position)].get(offset(position));
+    }
+
+    void putByte(long position, byte value) {
+        segments[segment(position)].put(offset(position), value);
+    }
+
+    int getInt(long position) {
+        return segments[segment(position)].getInt(offset(position));
+    }
+
+    void putInt(long position, int value) {
+        segments[segment(position)].putInt(offset(position), value);
+    }
+
+    long getLong(long position) {
+        return segments[segment(position)].getLong(offset(position));
+    }
+
+    void putLong(long position, long value) {
+        segments[segment(position)].putLong(offset(position), value);
+    }
+
+    float getFloat(long position) {
+        return segments[segment(position)].getFloat(offset(position));
+    }
+
+    void putFloat(long position, float value) {
+        segments[segment(position)].putFloat(offset(position), value);
+    }
+
+    void get(long position, byte[] destination) {
+        segments[segment(position)].get(offset(position), destination);
+    }
+
+    void put(long position, byte[] source) {
+        segments[segment(position)].put(offset(position), source);
+    }
+
+    /**
+     * Writes all changes made to this {@link MappedRegion} to its file.
+     */
+    void force() {
+        for (var segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void map(long capacity) throws IOException {
+        int count = (int) ((capacity + segmentSize - 1) >>> segmentShift);
+        var segments = Arrays.copyOf(this.segments, count);
+
+        for (int i = 0; i < count; ++i) {
+            long start = (long) i << segmentShift;
+            long size = Math.min(segmentSize, capacity - start);
+
+            if (segments[i] == null || segments[i].capacity() < size) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+            }
+        }
+
+        this.segments = segments;
+        this.capacity = capacity;
+    }
+
+    private static int segment(long position) {
+        return (int) (position >>> segmentShift);
+    }
+
+    private static int offset(long position) {
+        return (int) (position & (segmentSize - 1));
+    }
+}
@@ -0,0 +1,200 @@
+package src.inventory.storage;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import src.item.Item;
+import src.item.ItemListener;
+import src.item.ItemType;
+
+/**
+ * The default {@link ItemStorage}, keeping {@link Item}s on the heap in an {@link ItemTree}.
+ * <p>
+ * Next to the tree, {@link Item}s are indexed by their ID in a {@link LongHashMap} so that point lookups
+ * do not have to walk the tree, and by their {@link ItemType} in one {@link ItemTree} per type so that
+ * type-scoped searches only visit {@link Item}s of the requested types.
+ * </p>
+ */
+public class TreeItemStorage implements ItemStorage {
+    private final ItemTree items = new ItemTree();
+    private final LongHashMap<Item> itemsById;
+    private final EnumMap<ItemType, ItemTree> itemsByType = new EnumMap<>(ItemType.class);
+    private ItemListener listener;
+
+    public TreeItemStorage() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize The amount of {@link Item}s this {@link TreeItemStorage} is expected to hold.
+     */
+    public TreeItemStorage(int expectedSize) {
+        itemsById = new LongHashMap<>(expectedSize);
+
+        for (var type : ItemType.values()) {
+            itemsByType.put(type, new ItemTree());
+        }
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public Item get(long id) {
+        return itemsById.get(id);
+    }
+
+    @Override
+    public boolean add(Item item) {
+        if (!items.add(item)) {
+            return false;
+        }
+
+        itemsById.put(item.getIdentifier().getID(), item);
+        itemsByType.get(item.getIdentifier().getType()).add(item);
+        item.setListener(listener);
+
+        return true;
+    }
+
+    @Override
+    public List<Item> addAll(List<Item> items) {
+        var added = this.items.addAll(items);
+        var addedByType = new EnumMap<ItemType, List<Item>>(ItemType.class);
+
+        for (var item : added) {
+            itemsById.put(item.getIdentifier().getID(), item);
+            addedByType.computeIfAbsent(item.getIdentifier().getType(), t -> new ArrayList<>()).add(item);
+            item.setListener(listener);
+        }
+
+        // The added items are sorted by ID, and so is every partition of them.
+        addedByType.forEach((type, typeItems) -> itemsByType.get(type).addAll(typeItems));
+
+        return added;
+    }
+
+    @Override
+    public Item remove(long id) {
+        var item = items.remove(id);
+
+        if (item != null) {
+            itemsById.remove(id);
+            itemsByType.get(item.getIdentifier().getType()).remove(id);
+            item.setListener(null);
+        }
+
+        return item;
+    }
+
+    @Override
+    public List<Item> removeAll(long[] ids) {
+        var removed = items.removeAll(ids);
+        var removedByType = new EnumMap<ItemType, List<Item>>(ItemType.class);
+
+        for (var item : removed) {
+            itemsById.remove(item.getIdentifier().getID());
+            removedByType.computeIfAbsent(item.getIdentifier().getType(), t -> new ArrayList<>()).add(item);
+            item.setListener(null);
+        }
+
+        removedByType.forEach((type, typeItems) -> {
+            var typeIds = new long[typeItems.size()];
+
+            for (int i = 0; i < typeIds.length; ++i) {
+                typeIds[i] = typeItems.get(i).getIdentifier().getID();
+            }
+
+            itemsByType.get(type).removeAll(typeIds);
+        });
+
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (var item : items) {
+            item.setListener(null);
+        }
+
+        items.clear();
+        itemsById.clear();
+
+        for (var typeItems : itemsByType.values()) {
+            typeItems.clear();
+        }
+    }
+
+    @Override
+    public List<Item> getItemsOfTypes(Set<ItemType> types) {
+        var iterators = new ArrayList<Iterator<Item>>(types.size());
+        var heads = new ArrayList<Item>(types.size());
+        int total = 0;
+
+        for (var type : types) {
+            var typeItems = itemsByType.get(type);
+
+            if (!typeItems.isEmpty()) {
+                var iterator = typeItems.iterator();
+
+                iterators.add(iterator);
+                heads.add(iterator.next());
+                total += typeItems.size();
+            }
+        }
+
+        // Merge the ID-ordered runs of every type. There are only a handful of types, so the smallest head
+        // is simply looked up linearly.
+        var result = new ArrayList<Item>(total);
+
+        while (!heads.isEmpty()) {
+            int smallest = 0;
+
+            for (int i = 1; i < heads.size(); ++i) {
+                if (heads.get(i).getIdentifier().getID() < heads.get(smallest).getIdentifier().getID()) {
+                    smallest = i;
+                }
+            }
+
+            result.add(heads.get(smallest));
+
+            if (iterators.get(smallest).hasNext()) {
+                heads.set(smallest, iterators.get(smallest).next());
+            } else {
+                iterators.remove(smallest);
+                heads.remove(smallest);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int countOf(ItemType type) {
+        return itemsByType.get(type).size();
+    }
+
+    @Override
+    public void setListener(ItemListener listener) {
+        this.listener = listener;
+
+        for (var item : items) {
+            item.setListener(listener);
+        }
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return items.iterator();
+    }
+
+    @Override
+    public Iterator<Item> iterator(long fromId) {
+        return items.iterator(fromId);
+    }
+}
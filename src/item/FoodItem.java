@@ -37,7 +37,15 @@ public abstract class FoodItem extends Item {
             throw new IllegalArgumentException("The calories of a food must be equal to or more than zero.");
         }
 
+        var listener = notifyBeforeChange();
+        float oldCalories = this.calories;
+
         this.calories = calories;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onCaloriesChanged(this, oldCalories);
+        }
     }
 
     @Override
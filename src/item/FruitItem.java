@@ -39,7 +39,15 @@ public class FruitItem extends FoodItem implements ItemWithWeight {
             throw new IllegalArgumentException("The weight of an item must be more than or equal to zero.");
         }
 
+        var listener = notifyBeforeChange();
+        float oldWeight = this.weight;
+
         this.weight = weight;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onWeightChanged(this, oldWeight);
+        }
     }
 
     @Override
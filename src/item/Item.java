@@ -1,53 +1,266 @@
 package src.item;
 
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents an item.
  */
 public abstract class Item implements Cloneable {
+    // Set in the stock of an item once it has been replaced by a new version, after which its stock is frozen.
+    private static final long replacedFlag = Long.MIN_VALUE;
+
     protected ItemIdentifier identifier;
-    protected long stock;
+    // The stock is updated through compare-and-set so that concurrent sales never overwrite each other.
+    protected final AtomicLong stock;
     protected float price;
+    protected long reorderLevel;
+    private volatile ItemListener listener;
 
     protected Item(Item copy) {
         identifier = new ItemIdentifier(copy.identifier);
-        stock = copy.stock;
+        identifier.owner = this;
+        stock = new AtomicLong(copy.getStock());
         price = copy.price;
+        reorderLevel = copy.reorderLevel;
     }
 
     protected Item(ItemType type) {
         identifier = new ItemIdentifier(type);
-        stock = 0;
+        identifier.owner = this;
+        stock = new AtomicLong();
         price = 0;
     }
 
     protected Item(long id, ItemType type) {
         identifier = new ItemIdentifier(id, type);
-        stock = 0;
+        identifier.owner = this;
+        stock = new AtomicLong();
         price = 0;
     }
 
     protected Item(String name, String description, ItemType type, long stock, float price) {
         identifier = new ItemIdentifier(name, description, type);
-        this.stock = stock;
+        identifier.owner = this;
+        this.stock = new AtomicLong(stock);
         this.price = price;
     }
 
+    /**
+     * Creates an empty {@link Item} of a type.
+     *
+     * @param id The ID of the {@link Item}.
+     * @param type The type of the {@link Item}.
+     * @return The {@link Item}.
+     * @throws IllegalArgumentException If no {@link Item} can be created for the type.
+     */
+    public static Item create(long id, ItemType type) throws IllegalArgumentException {
+        return switch (type) {
+            case cosmetic -> new CosmeticItem(id);
+            case kitchenware -> new KitchenwareItem(id);
+            case softDrinks -> new SoftDrinksItem(id);
+            case breakfastSpread -> new BreakfastSpreadItem(id);
+            case noodles -> new NoodlesItem(id);
+            case washing -> new WashingItem(id);
+            case fruit -> new FruitItem(id);
+            case vegetables -> new VegetableItem(id);
+            default -> throw new IllegalArgumentException("Unable to infer item type.");
+        };
+    }
+
     public ItemIdentifier getIdentifier() {
         return identifier;
     }
 
+    public ItemListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Sets the {@link ItemListener} that is notified when the data of this {@link Item} changes.
+     * <p>
+     * The listener is not carried over to clones of this {@link Item}.
+     * </p>
+     *
+     * @param listener The {@link ItemListener}, <code>null</code> to stop notifying.
+     */
+    public void setListener(ItemListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Tells the {@link ItemListener} of this {@link Item} that its data is about to change. Every setter calls
+     * this once it has validated its input, before it changes anything, and passes the returned listener to
+     * {@link #notifyAfterChange(ItemListener)} once the change is made or given up, even if it throws.
+     *
+     * @return The {@link ItemListener} that was told, <code>null</code> if there is none. The same listener is
+     * told about the change afterwards, even if another one was set in the meantime.
+     */
+    protected ItemListener notifyBeforeChange() {
+        var listener = this.listener;
+
+        if (listener != null) {
+            listener.beforeChange(this);
+        }
+
+        return listener;
+    }
+
+    /**
+     * Tells an {@link ItemListener} that the change it was told about by {@link #notifyBeforeChange()} is over.
+     *
+     * @param listener The {@link ItemListener} returned by {@link #notifyBeforeChange()}.
+     */
+    protected void notifyAfterChange(ItemListener listener) {
+        if (listener != null) {
+            listener.afterChange(this);
+        }
+    }
+
     public long getStock() {
-        return stock;
+        return stock.get() & ~replacedFlag;
     }
 
-    public void setStock(long stock) {
+    /**
+     * @throws IllegalArgumentException If the stock is below zero.
+     * @throws IllegalStateException If this {@link Item} has been {@link #markReplaced(long) replaced}.
+     */
+    public void setStock(long stock) throws IllegalArgumentException, IllegalStateException {
         if (stock < 0) {
             throw new IllegalArgumentException("The stock of an item must be equal to or more than zero.");
         }
 
-        this.stock = stock;
+        if (isReplaced()) {
+            throw new IllegalStateException("The item has been replaced by a new version.");
+        }
+
+        var listener = notifyBeforeChange();
+        long oldStock;
+
+        try {
+            // The item may still be replaced between the check above and the update.
+            oldStock = this.stock.getAndUpdate(current -> {
+                if ((current & replacedFlag) != 0) {
+                    throw new IllegalStateException("The item has been replaced by a new version.");
+                }
+
+                return stock;
+            });
+        } finally {
+            notifyAfterChange(listener);
+        }
+
+        if (listener != null) {
+            listener.onStockChanged(this, oldStock);
+        }
+    }
+
+    /**
+     * Atomically adds an amount to the stock of this {@link Item}.
+     *
+     * @param delta The amount to add. Use a negative amount to take stock out.
+     * @return The new stock.
+     * @throws IllegalArgumentException If the stock would go below zero. The stock is left unchanged in that case.
+     * @throws IllegalStateException If this {@link Item} has been {@link #markReplaced(long) replaced}, in which
+     * case the adjustment belongs to the new version.
+     */
+    public long adjustStock(long delta) throws IllegalArgumentException, IllegalStateException {
+        boolean notified = false;
+        ItemListener listener = null;
+        long current;
+        long updated;
+
+        try {
+            do {
+                current = stock.get();
+
+                if ((current & replacedFlag) != 0) {
+                    throw new IllegalStateException("The item has been replaced by a new version.");
+                }
+
+                updated = Math.addExact(current, delta);
+
+                if (updated < 0) {
+                    throw new IllegalArgumentException("The stock of an item must be equal to or more than zero.");
+                }
+
+                // Rejected adjustments change nothing, so the listener is only told once a change is attempted.
+                if (!notified) {
+                    listener = notifyBeforeChange();
+                    notified = true;
+                }
+            } while (!stock.compareAndSet(current, updated));
+        } finally {
+            if (notified) {
+                notifyAfterChange(listener);
+            }
+        }
+
+        if (listener != null) {
+            listener.onStockChanged(this, current);
+        }
+
+        return updated;
+    }
+
+    /**
+     * Atomically sets the stock of this {@link Item} if it is still at an expected value.
+     *
+     * @param expected The expected stock.
+     * @param stock The new stock.
+     * @return Whether the stock was set. The stock is not set if it was no longer <code>expected</code>, or if this
+     * {@link Item} has been {@link #markReplaced(long) replaced}.
+     * @throws IllegalArgumentException If the new stock is below zero.
+     */
+    public boolean compareAndSetStock(long expected, long stock) throws IllegalArgumentException {
+        if (stock < 0) {
+            throw new IllegalArgumentException("The stock of an item must be equal to or more than zero.");
+        }
+
+        if (this.stock.get() != expected) {
+            return false;
+        }
+
+        var listener = notifyBeforeChange();
+        boolean set;
+
+        try {
+            set = this.stock.compareAndSet(expected, stock);
+        } finally {
+            notifyAfterChange(listener);
+        }
+
+        if (!set) {
+            return false;
+        }
+
+        if (listener != null) {
+            listener.onStockChanged(this, expected);
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks this {@link Item} as replaced by a new version, if its stock is still at an expected value.
+     * <p>
+     * The check and the mark are a single atomic step, so every concurrent stock change either happens before it,
+     * and makes it fail, or is rejected after it. The stock reads as it was, but can no longer change.
+     * </p>
+     *
+     * @param expectedStock The stock that the new version was based on.
+     * @return Whether this {@link Item} was marked. It is not marked if its stock changed or if it was already
+     * marked.
+     */
+    public boolean markReplaced(long expectedStock) {
+        return expectedStock >= 0 && stock.compareAndSet(expectedStock, expectedStock | replacedFlag);
+    }
+
+    /**
+     * Whether this {@link Item} has been {@link #markReplaced(long) replaced} by a new version.
+     */
+    public boolean isReplaced() {
+        return (stock.get() & replacedFlag) != 0;
     }
 
     public float getPrice() {
@@ -59,14 +272,60 @@ public abstract class Item implements Cloneable {
             throw new IllegalArgumentException("The price of an item must be more than zero.");
         }
 
+        var listener = notifyBeforeChange();
+        float oldPrice = this.price;
+
         this.price = price;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onPriceChanged(this, oldPrice);
+        }
+    }
+
+    /**
+     * Gets the stock level below which this {@link Item} needs to be restocked.
+     *
+     * @return The reorder level, 0 if this {@link Item} is never restocked.
+     */
+    public long getReorderLevel() {
+        return reorderLevel;
+    }
+
+    /**
+     * Sets the stock level below which this {@link Item} needs to be restocked.
+     *
+     * @param reorderLevel The reorder level, 0 if this {@link Item} is never restocked.
+     * @throws IllegalArgumentException If the reorder level is below zero.
+     */
+    public void setReorderLevel(long reorderLevel) throws IllegalArgumentException {
+        if (reorderLevel < 0) {
+            throw new IllegalArgumentException("The reorder level of an item must be equal to or more than zero.");
+        }
+
+        var listener = notifyBeforeChange();
+        long oldReorderLevel = this.reorderLevel;
+
+        this.reorderLevel = reorderLevel;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onReorderLevelChanged(this, oldReorderLevel);
+        }
+    }
+
+    /**
+     * Whether the stock of this {@link Item} is below its reorder level.
+     */
+    public boolean isBelowReorderLevel() {
+        return getStock() < reorderLevel;
     }
 
     /**
      * Generates a table row of this {@link Item}.
      */
     public String generateTableRow() {
-        return String.format("%d\t%-50s\t%-16s\t%d\t%.2f", identifier.getID(), identifier.getName(), identifier.getType(), stock, price);
+        return String.format("%d\t%-50s\t%-16s\t%d\t%.2f", identifier.getID(), identifier.getName(), identifier.getType(), getStock(), price);
     }
 
     /**
@@ -78,8 +337,9 @@ public abstract class Item implements Cloneable {
         System.out.printf("Name: %s\n", identifier.getName());
         System.out.printf("Description: %s\n", identifier.getDescription());
         System.out.printf("Type: %s\n", identifier.getType());
-        System.out.printf("Stock: %d\n", stock);
+        System.out.printf("Stock: %d\n", getStock());
         System.out.printf("Price: RM%.2f\n", price);
+        System.out.printf("Reorder level: %s\n", reorderLevel > 0 ? reorderLevel : "None");
     }
 
     /**
@@ -91,7 +351,7 @@ public abstract class Item implements Cloneable {
         var scanner = new Scanner(System.in);
 
         while (true) {
-            System.out.printf("Enter item stock (currently %d): ", stock);
+            System.out.printf("Enter item stock (currently %d): ", getStock());
 
             try {
                 setStock(Long.parseLong(scanner.nextLine()));
@@ -111,6 +371,17 @@ public abstract class Item implements Cloneable {
                 System.out.println("Invalid price.");
             }
         }
+
+        while (true) {
+            System.out.printf("Enter item reorder level, 0 for none (currently %d): ", reorderLevel);
+
+            try {
+                setReorderLevel(Long.parseLong(scanner.nextLine()));
+                break;
+            } catch (Exception e) {
+                System.out.println("Invalid reorder level.");
+            }
+        }
     }
 
     @Override
@@ -6,15 +6,22 @@ import java.util.Scanner;
  * A data class for identifying an {@link Item}.
  */
 public class ItemIdentifier {
-    private static long incrementalId;
+    /**
+     * The ID of an {@link Item} that has not been given one yet. An {@link src.inventory.InventoryManager} gives
+     * such {@link Item}s an ID from its {@link src.inventory.IdAllocator} when they are added.
+     */
+    public static final long unassignedId = 0;
 
     private long id;
     private String name;
     private String description;
     private final ItemType type;
 
+    // The item this identifier belongs to, used to notify its listener of name and description changes.
+    Item owner;
+
     public ItemIdentifier(ItemType type) {
-        this(++incrementalId, type);
+        this(unassignedId, type);
     }
 
     public ItemIdentifier(long id, ItemType type) {
@@ -25,7 +32,7 @@ public class ItemIdentifier {
     }
 
     public ItemIdentifier(String name, String description, ItemType type) {
-        this.id = ++incrementalId;
+        this.id = unassignedId;
         this.name = name;
         this.description = description;
         this.type = type;
@@ -38,10 +45,6 @@ public class ItemIdentifier {
         this.type = copy.type;
     }
 
-    public static void setIncrementalID(long id) {
-        incrementalId = id;
-    }
-
     public long getID() {
         return id;
     }
@@ -55,7 +58,18 @@ public class ItemIdentifier {
     }
 
     public void setName(String name) {
+        var listener = owner != null ? owner.notifyBeforeChange() : null;
+        String oldName = this.name;
+
         this.name = name;
+
+        if (owner != null) {
+            owner.notifyAfterChange(listener);
+        }
+
+        if (listener != null) {
+            listener.onNameChanged(owner, oldName);
+        }
     }
 
     public String getDescription() {
@@ -63,7 +77,18 @@ public class ItemIdentifier {
     }
 
     public void setDescription(String description) {
+        var listener = owner != null ? owner.notifyBeforeChange() : null;
+        String oldDescription = this.description;
+
         this.description = description;
+
+        if (owner != null) {
+            owner.notifyAfterChange(listener);
+        }
+
+        if (listener != null) {
+            listener.onDescriptionChanged(owner, oldDescription);
+        }
     }
 
     public ItemType getType() {
@@ -98,7 +123,7 @@ public class ItemIdentifier {
                 continue;
             }
 
-            this.name = name;
+            setName(name);
             break;
         }
 
@@ -124,7 +149,7 @@ public class ItemIdentifier {
                 continue;
             }
 
-            this.description = description;
+            setDescription(description);
             break;
         }
     }
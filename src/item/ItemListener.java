@@ -0,0 +1,94 @@
+package src.item;
+
+/**
+ * A listener that is notified when the data of an {@link Item} changes.
+ */
+public interface ItemListener {
+    /**
+     * Called before any data of an {@link Item} changes, while the {@link Item} still holds its previous data.
+     *
+     * @param item The {@link Item}.
+     */
+    default void beforeChange(Item item) {}
+
+    /**
+     * Called once the change announced by {@link #beforeChange(Item)} has been made, or has been given up because it
+     * was rejected. Every call to {@link #beforeChange(Item)} is followed by exactly one call to this method on the
+     * same listener, before the notification that names the changed data.
+     *
+     * @param item The {@link Item}.
+     */
+    default void afterChange(Item item) {}
+
+    /**
+     * Called after the name of an {@link Item} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldName The name before the change.
+     */
+    default void onNameChanged(Item item, String oldName) {}
+
+    /**
+     * Called after the description of an {@link Item} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldDescription The description before the change.
+     */
+    default void onDescriptionChanged(Item item, String oldDescription) {}
+
+    /**
+     * Called after the stock of an {@link Item} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldStock The stock before the change.
+     */
+    default void onStockChanged(Item item, long oldStock) {}
+
+    /**
+     * Called after the price of an {@link Item} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldPrice The price before the change.
+     */
+    default void onPriceChanged(Item item, float oldPrice) {}
+
+    /**
+     * Called after the reorder level of an {@link Item} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldReorderLevel The reorder level before the change.
+     */
+    default void onReorderLevelChanged(Item item, long oldReorderLevel) {}
+
+    /**
+     * Called after the calories of a {@link FoodItem} have changed.
+     *
+     * @param item The {@link FoodItem}.
+     * @param oldCalories The calories before the change.
+     */
+    default void onCaloriesChanged(FoodItem item, float oldCalories) {}
+
+    /**
+     * Called after the weight of an {@link ItemWithWeight} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldWeight The weight before the change.
+     */
+    default void onWeightChanged(Item item, float oldWeight) {}
+
+    /**
+     * Called after the volume of an {@link ItemWithVolume} has changed.
+     *
+     * @param item The {@link Item}.
+     * @param oldVolume The volume before the change.
+     */
+    default void onVolumeChanged(Item item, float oldVolume) {}
+
+    /**
+     * Called after the material of a {@link KitchenwareItem} has changed.
+     *
+     * @param item The {@link KitchenwareItem}.
+     * @param oldMaterial The material before the change.
+     */
+    default void onMaterialChanged(KitchenwareItem item, String oldMaterial) {}
+}
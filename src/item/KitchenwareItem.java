@@ -33,7 +33,15 @@ public class KitchenwareItem extends Item {
     }
 
     public void setMaterial(String material) {
+        var listener = notifyBeforeChange();
+        String oldMaterial = this.material;
+
         this.material = material;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onMaterialChanged(this, oldMaterial);
+        }
     }
 
     @Override
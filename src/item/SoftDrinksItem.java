@@ -37,7 +37,15 @@ public class SoftDrinksItem extends FoodItem implements ItemWithWeight, ItemWith
 
     @Override
     public void setWeight(float weight) {
+        var listener = notifyBeforeChange();
+        float oldWeight = this.weight;
+
         this.weight = weight;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onWeightChanged(this, oldWeight);
+        }
     }
 
     @Override
@@ -51,7 +59,15 @@ public class SoftDrinksItem extends FoodItem implements ItemWithWeight, ItemWith
             throw new IllegalArgumentException("The volume of an item must be more than or equal to zero.");
         }
 
+        var listener = notifyBeforeChange();
+        float oldVolume = this.volume;
+
         this.volume = volume;
+        notifyAfterChange(listener);
+
+        if (listener != null) {
+            listener.onVolumeChanged(this, oldVolume);
+        }
     }
 
     @Override
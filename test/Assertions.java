@@ -0,0 +1,50 @@
+package test;
+
+/**
+ * Checks that the tests in this package share. A failed check throws an {@link AssertionError}, which ends the
+ * test with a non-zero exit code.
+ */
+public final class Assertions {
+    private Assertions() {}
+
+    /**
+     * Checks that a condition holds.
+     *
+     * @param condition The condition.
+     * @param message What went wrong if the condition does not hold.
+     * @throws AssertionError If the condition does not hold.
+     */
+    public static void check(boolean condition, String message) throws AssertionError {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Checks that a value is the expected one.
+     *
+     * @param expected The expected value.
+     * @param actual The actual value.
+     * @param what What the value is.
+     * @throws AssertionError If the values differ.
+     */
+    public static void checkEquals(long expected, long actual, String what) throws AssertionError {
+        if (expected != actual) {
+            throw new AssertionError(String.format("%s: expected %d, got %d", what, expected, actual));
+        }
+    }
+
+    /**
+     * Checks that two references point to the same object.
+     *
+     * @param expected The expected object.
+     * @param actual The actual object.
+     * @param what What the object is.
+     * @throws AssertionError If the references differ.
+     */
+    public static void checkSame(Object expected, Object actual, String what) throws AssertionError {
+        if (expected != actual) {
+            throw new AssertionError(String.format("%s: expected %s, got %s", what, expected, actual));
+        }
+    }
+}
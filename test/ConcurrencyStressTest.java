@@ -0,0 +1,201 @@
+package test;
+
+import static test.Assertions.check;
+import static test.Assertions.checkEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import src.inventory.InventoryManager;
+import src.inventory.search.InventorySearchQuery;
+import src.inventory.storage.ColumnarItemStorage;
+import src.inventory.storage.ItemStorage;
+import src.inventory.storage.MappedItemStorage;
+import src.inventory.storage.TreeItemStorage;
+import src.item.CosmeticItem;
+import src.item.Item;
+
+/**
+ * Shares an {@link InventoryManager} between writer and reader threads, and checks that no write is lost and that
+ * no read observes a state that never existed.
+ * <p>
+ * Every writer owns every <code>writers</code>th ID, which it adds in ascending order, removing every third
+ * {@link Item} right after adding it. The writers take turns on neighbouring IDs, so new {@link Item}s are mostly
+ * appended, as they would be with allocated IDs. Any consistent view of the inventory therefore holds, for every
+ * writer, each of its kept {@link Item}s up to the highest one present, with no gaps. Searches and sheets are checked
+ * for exactly that while the writers are running.
+ * </p>
+ * <p>
+ * Run from the root directory with <code>javac ./test/ConcurrencyStressTest.java</code> and
+ * <code>java test.ConcurrencyStressTest</code>.
+ * </p>
+ */
+public class ConcurrencyStressTest {
+    private static final int writers = 8;
+    private static final int readers = 4;
+    private static final int itemsPerWriter = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        run("tree", new TreeItemStorage());
+        run("columnar", new ColumnarItemStorage());
+
+        var directory = Files.createTempDirectory("stress");
+
+        try (var storage = new MappedItemStorage(directory)) {
+            run("mapped", storage);
+        } finally {
+            deleteDirectory(directory);
+        }
+
+        System.out.println("ConcurrencyStressTest passed.");
+    }
+
+    private static void run(String name, ItemStorage storage) throws Exception {
+        var inventoryManager = new InventoryManager(storage);
+        var pool = Executors.newFixedThreadPool(writers + readers);
+        var stop = new AtomicBoolean();
+        var writes = new ArrayList<Future<?>>();
+        var reads = new ArrayList<Future<?>>();
+
+        try {
+            for (int writer = 0; writer < writers; ++writer) {
+                int owner = writer;
+
+                writes.add(pool.submit(() -> {
+                    for (int i = 1; i <= itemsPerWriter; ++i) {
+                        long id = idOf(owner, i);
+
+                        check(inventoryManager.addItem(new CosmeticItem(id)), "addItem(" + id + ") was rejected");
+
+                        if (i % 3 == 0) {
+                            check(inventoryManager.removeItem(id), "removeItem(" + id + ") found nothing");
+                        }
+                    }
+                }));
+            }
+
+            for (int reader = 0; reader < readers; ++reader) {
+                int seed = reader;
+
+                reads.add(pool.submit(() -> {
+                    var random = new Random(seed);
+
+                    while (!stop.get()) {
+                        for (int i = 0; i < 1_000; ++i) {
+                            long id = random.nextInt(writers * itemsPerWriter) + 1;
+                            var item = inventoryManager.getItem(id);
+
+                            check(item == null || item.getIdentifier().getID() == id, "getItem(" + id + ") returned another item");
+                        }
+
+                        if (seed % 2 == 0) {
+                            checkConsistent(inventoryManager.searchItems(new InventorySearchQuery()).getItems(), "search");
+                        } else {
+                            checkConsistent(inventoryManager.createSheet().getItems(), "sheet");
+                        }
+
+                        // A view holds writers up for as long as it takes, so leave them some room in between.
+                        Thread.sleep(20);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (var write : writes) {
+                write.get();
+            }
+
+            stop.set(true);
+
+            for (var read : reads) {
+                read.get();
+            }
+        } finally {
+            stop.set(true);
+            shutdown(pool);
+        }
+
+        // No write may have been lost.
+        checkEquals(writers * (itemsPerWriter - itemsPerWriter / 3), inventoryManager.size(), name + ": size");
+
+        for (int writer = 0; writer < writers; ++writer) {
+            for (int i = 1; i <= itemsPerWriter; ++i) {
+                long id = idOf(writer, i);
+
+                check((inventoryManager.getItem(id) != null) == (i % 3 != 0), name + ": item " + id + " is in the wrong state");
+            }
+        }
+
+        checkConsistent(inventoryManager.getItems(), name + ": final items");
+        System.out.printf("%s: %d items\n", name, inventoryManager.size());
+    }
+
+    /**
+     * Checks that a view of the inventory is sorted by ID and could have existed at a single point in time.
+     *
+     * @param items The {@link Item}s of the view.
+     * @param view What the view is.
+     */
+    private static void checkConsistent(List<Item> items, String view) {
+        var highest = new int[writers];
+        var count = new int[writers];
+        long previous = Long.MIN_VALUE;
+
+        for (var item : items) {
+            long id = item.getIdentifier().getID();
+
+            check(id > previous, view + ": IDs are not strictly ascending at " + id);
+            previous = id;
+
+            int writer = (int) ((id - 1) % writers);
+            int i = (int) ((id - 1) / writers) + 1;
+
+            // Every third item is only present between being added and removed, so it must be the last of its writer.
+            check(highest[writer] % 3 != 0 || highest[writer] == 0, view + ": item " + id + " follows a removed item");
+            highest[writer] = i;
+            ++count[writer];
+        }
+
+        for (int writer = 0; writer < writers; ++writer) {
+            int kept = highest[writer] - highest[writer] / 3;
+            int expected = highest[writer] % 3 == 0 && highest[writer] > 0 ? kept + 1 : kept;
+
+            checkEquals(expected, count[writer], view + ": items of writer " + writer);
+        }
+    }
+
+    /**
+     * Gets the ID of the <code>i</code>th {@link Item} of a writer.
+     */
+    private static long idOf(int writer, int i) {
+        return (long) (i - 1) * writers + writer + 1;
+    }
+
+    private static void shutdown(ExecutorService pool) throws InterruptedException {
+        pool.shutdown();
+
+        if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+}
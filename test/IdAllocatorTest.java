@@ -0,0 +1,96 @@
+package test;
+
+import static test.Assertions.check;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import src.inventory.InventoryBackup;
+import src.inventory.InventoryManager;
+import src.item.CosmeticItem;
+import src.item.Item;
+
+/**
+ * Checks that the {@link src.inventory.IdAllocator} of an {@link InventoryManager} never hands out an ID that is
+ * taken by an {@link Item} that was added or loaded with its own ID, even if that ID lies within a block of IDs
+ * that has already been reserved.
+ * <p>
+ * Run from the root directory with <code>javac ./test/IdAllocatorTest.java</code> and
+ * <code>java test.IdAllocatorTest</code>.
+ * </p>
+ */
+public class IdAllocatorTest {
+    private static final int allocations = 200;
+
+    public static void main(String[] args) {
+        loadedIdsAreNotHandedOut();
+        addedIdsAreNotHandedOut();
+        batchIdsAreNotHandedOut();
+
+        System.out.println("IdAllocatorTest passed.");
+    }
+
+    private static void loadedIdsAreNotHandedOut() {
+        var inventoryManager = new InventoryManager();
+
+        // Reserves a block of IDs for this thread, which the backup below falls within.
+        check(inventoryManager.addItem(new CosmeticItem()), "the first item was rejected");
+
+        var backup = new ArrayList<Item>();
+
+        for (long id = 2; id <= 10; ++id) {
+            backup.add(new CosmeticItem(id));
+        }
+
+        inventoryManager.loadBackup(new InventoryBackup(backup));
+        checkAllocations(inventoryManager, backup, "after loading a backup");
+    }
+
+    private static void addedIdsAreNotHandedOut() {
+        var inventoryManager = new InventoryManager();
+        var first = new CosmeticItem();
+
+        check(inventoryManager.addItem(first), "the first item was rejected");
+
+        var added = new CosmeticItem(first.getIdentifier().getID() + 1);
+
+        check(inventoryManager.addItem(added), "the item with its own ID was rejected");
+        checkAllocations(inventoryManager, List.of(first, added), "after adding an item with its own ID");
+    }
+
+    private static void batchIdsAreNotHandedOut() {
+        var inventoryManager = new InventoryManager();
+        var first = new CosmeticItem();
+
+        check(inventoryManager.addItem(first), "the first item was rejected");
+
+        var batch = new ArrayList<Item>();
+
+        for (long id = first.getIdentifier().getID() + 1; id <= first.getIdentifier().getID() + 5; ++id) {
+            batch.add(new CosmeticItem(id));
+        }
+
+        check(inventoryManager.addItems(batch) == batch.size(), "the batch was not added as a whole");
+        batch.add(first);
+        checkAllocations(inventoryManager, batch, "after adding a batch with their own IDs");
+    }
+
+    /**
+     * Adds {@link Item}s without an ID and checks that each of them is added with a new ID.
+     *
+     * @param inventoryManager The {@link InventoryManager}.
+     * @param taken The {@link Item}s that are already in the {@link InventoryManager}.
+     * @param when When the {@link Item}s are added.
+     */
+    private static void checkAllocations(InventoryManager inventoryManager, List<Item> taken, String when) {
+        for (int i = 0; i < allocations; ++i) {
+            var item = new CosmeticItem();
+
+            check(inventoryManager.addItem(item), "an item with an allocated ID was rejected " + when);
+
+            for (var other : taken) {
+                check(other.getIdentifier().getID() != item.getIdentifier().getID(), "ID " + item.getIdentifier().getID() + " was handed out again " + when);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package test;
+
+import static test.Assertions.check;
+import static test.Assertions.checkEquals;
+import static test.Assertions.checkSame;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+
+import src.inventory.InventoryManager;
+import src.inventory.storage.ItemTree;
+import src.item.CosmeticItem;
+import src.item.Item;
+
+/**
+ * Checks that an {@link ItemTree} keeps {@link Item}s in ID order and rejects duplicate IDs, the way the sorted
+ * list it replaced did.
+ * <p>
+ * Run from the root directory with <code>javac ./test/ItemTreeTest.java</code> and
+ * <code>java test.ItemTreeTest</code>.
+ * </p>
+ */
+public class ItemTreeTest {
+    private static final int idRange = 20_000;
+    private static final int operations = 400_000;
+
+    public static void main(String[] args) {
+        randomOperationsMatchSortedMap();
+        duplicatesAreRejected();
+        iterationStartsAtId();
+        inventoryManagerKeepsIdOrder();
+
+        System.out.println("ItemTreeTest passed.");
+    }
+
+    /**
+     * Applies random adds and removes to an {@link ItemTree} and a {@link TreeMap} and compares them throughout.
+     */
+    private static void randomOperationsMatchSortedMap() {
+        var random = new Random(1);
+        var tree = new ItemTree();
+        var expected = new TreeMap<Long, Item>();
+
+        for (int i = 0; i < operations; ++i) {
+            long id = random.nextInt(idRange) + 1;
+
+            // Grow the tree during the first half and shrink it during the second, so both splits and merges happen.
+            if (random.nextInt(3) < (i < operations / 2 ? 2 : 1)) {
+                var item = new CosmeticItem(id);
+                boolean added = expected.putIfAbsent(id, item) == null;
+
+                check(tree.add(item) == added, "add(" + id + ") returned " + !added);
+            } else {
+                checkSame(expected.remove(id), tree.remove(id), "remove(" + id + ")");
+            }
+
+            checkEquals(expected.size(), tree.size(), "size");
+
+            if (i % 20_000 == 0) {
+                checkContents(tree, expected);
+            }
+        }
+
+        checkContents(tree, expected);
+
+        for (long id : new ArrayList<>(expected.keySet())) {
+            checkSame(expected.remove(id), tree.remove(id), "remove(" + id + ")");
+        }
+
+        check(tree.isEmpty() && !tree.iterator().hasNext(), "the tree is not empty after removing every item");
+    }
+
+    private static void duplicatesAreRejected() {
+        var tree = new ItemTree();
+        var first = new CosmeticItem(7);
+
+        check(tree.add(first), "the first item with an ID was rejected");
+        check(!tree.add(new CosmeticItem(7)), "an item with a duplicate ID was added");
+        checkSame(first, tree.get(7), "get(7)");
+        checkEquals(1, tree.size(), "size");
+
+        // A batch keeps the first of several items that share an ID, and skips IDs that already exist.
+        var batch = new ArrayList<Item>();
+        var second = new CosmeticItem(8);
+
+        batch.add(new CosmeticItem(7));
+        batch.add(second);
+        batch.add(new CosmeticItem(8));
+
+        var added = tree.addAll(batch);
+
+        checkEquals(1, added.size(), "items added from the batch");
+        checkSame(second, added.get(0), "added item");
+        checkSame(first, tree.get(7), "get(7)");
+        checkSame(second, tree.get(8), "get(8)");
+        check(tree.remove(9) == null, "an item that does not exist was removed");
+    }
+
+    private static void iterationStartsAtId() {
+        var tree = new ItemTree();
+
+        for (long id = 10; id <= 1_000; id += 10) {
+            tree.add(new CosmeticItem(id));
+        }
+
+        var iterator = tree.iterator(505);
+
+        checkEquals(510, iterator.next().getIdentifier().getID(), "first ID from 505");
+
+        iterator = tree.iterator(500);
+
+        checkEquals(500, iterator.next().getIdentifier().getID(), "first ID from 500");
+        check(!tree.iterator(1_001).hasNext(), "items were found after the highest ID");
+    }
+
+    private static void inventoryManagerKeepsIdOrder() {
+        var random = new Random(2);
+        var inventoryManager = new InventoryManager();
+        var expected = new TreeMap<Long, Item>();
+
+        for (int i = 0; i < 50_000; ++i) {
+            long id = random.nextInt(idRange) + 1;
+            var item = new CosmeticItem(id);
+
+            check(inventoryManager.addItem(item) == (expected.putIfAbsent(id, item) == null), "addItem(" + id + ")");
+
+            if (random.nextInt(4) == 0) {
+                long removed = random.nextInt(idRange) + 1;
+
+                check(inventoryManager.removeItem(removed) == (expected.remove(removed) != null), "removeItem(" + removed + ")");
+            }
+        }
+
+        var items = inventoryManager.getItems();
+
+        checkEquals(expected.size(), items.size(), "size");
+
+        int index = 0;
+
+        for (var item : expected.values()) {
+            checkSame(item, items.get(index++), "item at index " + (index - 1));
+            checkSame(item, inventoryManager.getItem(item.getIdentifier().getID()), "getItem(" + item.getIdentifier().getID() + ")");
+        }
+    }
+
+    private static void checkContents(ItemTree tree, TreeMap<Long, Item> expected) {
+        var iterator = tree.iterator();
+
+        for (var item : expected.values()) {
+            check(iterator.hasNext(), "the tree has fewer items than expected");
+            checkSame(item, iterator.next(), "item in ID order");
+        }
+
+        check(!iterator.hasNext(), "the tree has more items than expected");
+
+        for (long id = 1; id <= idRange; id += 7) {
+            checkSame(expected.get(id), tree.get(id), "get(" + id + ")");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package test;
+
+import static test.Assertions.check;
+import static test.Assertions.checkEquals;
+import static test.Assertions.checkSame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import src.inventory.InventoryManager;
+import src.inventory.search.InventorySearchQuery;
+import src.inventory.search.ItemAttribute;
+import src.inventory.storage.MappedItemStorage;
+import src.item.CosmeticItem;
+import src.item.Item;
+
+/**
+ * Checks that a {@link MappedItemStorage} hands out a single {@link Item} per ID, so that changes made through
+ * different lookups of the same {@link Item} are never lost.
+ * <p>
+ * Run from the root directory with <code>javac ./test/MappedItemStorageTest.java</code> and
+ * <code>java test.MappedItemStorageTest</code>.
+ * </p>
+ */
+public class MappedItemStorageTest {
+    private static final int threads = 4;
+    private static final int adjustmentsPerThread = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        var directory = Files.createTempDirectory("mapped");
+
+        try {
+            try (var storage = new MappedItemStorage(directory)) {
+                lookupsShareAnItem(new InventoryManager(storage));
+            }
+
+            try (var storage = new MappedItemStorage(directory)) {
+                concurrentAdjustmentsAreKept(new InventoryManager(storage));
+            }
+
+            try (var storage = new MappedItemStorage(directory)) {
+                reopenedItemsAreIndexedOnDemand(new InventoryManager(storage));
+            }
+
+            try (var storage = new MappedItemStorage(directory)) {
+                removedItemsDoNotWriteBack(new InventoryManager(storage));
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+
+        System.out.println("MappedItemStorageTest passed.");
+    }
+
+    private static void lookupsShareAnItem(InventoryManager inventoryManager) {
+        var added = new CosmeticItem(1);
+
+        check(inventoryManager.addItem(added), "addItem(1) was rejected");
+        checkSame(added, inventoryManager.getItem(1), "getItem(1) after adding");
+        checkSame(inventoryManager.getItem(1), inventoryManager.getItems().get(0), "getItems() item");
+
+        var p = inventoryManager.getItem(1);
+        var q = inventoryManager.getItem(1);
+
+        p.setStock(5);
+        q.adjustStock(3);
+
+        checkEquals(8, inventoryManager.getItem(1).getStock(), "stock after changes through two lookups");
+    }
+
+    private static void concurrentAdjustmentsAreKept(InventoryManager inventoryManager) throws Exception {
+        // The storage was reopened, so the item is decoded from its record again.
+        checkEquals(8, inventoryManager.getItem(1).getStock(), "stock after reopening");
+
+        var pool = Executors.newFixedThreadPool(threads);
+        var adjustments = new ArrayList<Future<?>>();
+
+        try {
+            for (int i = 0; i < threads; ++i) {
+                adjustments.add(pool.submit(() -> {
+                    for (int j = 0; j < adjustmentsPerThread; ++j) {
+                        check(inventoryManager.adjustStock(1, 1), "adjustStock(1) found nothing");
+                    }
+                }));
+            }
+
+            for (var adjustment : adjustments) {
+                adjustment.get();
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        checkEquals(8 + threads * adjustmentsPerThread, inventoryManager.getItem(1).getStock(), "stock after concurrent adjustments");
+    }
+
+    private static void reopenedItemsAreIndexedOnDemand(InventoryManager inventoryManager) {
+        long stock = 8 + threads * adjustmentsPerThread;
+        var named = new CosmeticItem(2);
+
+        named.getIdentifier().setName("Lipstick");
+
+        // Nothing has been indexed since the storage was reopened, so these changes only reach the storage.
+        check(inventoryManager.addItem(named), "addItem(2) was rejected");
+        check(inventoryManager.adjustStock(1, -8), "adjustStock(1) found nothing");
+
+        var byName = new InventorySearchQuery();
+
+        byName.setQuery("lips");
+        checkSame(named, inventoryManager.searchItems(byName).getItems().get(0), "item found by name after reopening");
+
+        var byStock = new InventorySearchQuery();
+
+        byStock.setRange(ItemAttribute.stock, stock - 8, stock - 8);
+        checkEquals(1, inventoryManager.searchItems(byStock).getItems().size(), "items found by stock after reopening");
+        checkEquals(stock - 8, inventoryManager.getTotals().getTotalStock(), "total stock after reopening");
+
+        // Once indexed, changes are applied to the indexes as well.
+        check(inventoryManager.adjustStock(1, 8), "adjustStock(1) found nothing");
+        checkEquals(stock, inventoryManager.getTotals().getTotalStock(), "total stock after indexing");
+        check(inventoryManager.removeItem(2), "removeItem(2) found nothing");
+        checkEquals(1, inventoryManager.getTotals().getItemCount(), "item count after indexing");
+    }
+
+    private static void removedItemsDoNotWriteBack(InventoryManager inventoryManager) {
+        // The adjustments were written through to the record as they were made.
+        checkEquals(8 + threads * adjustmentsPerThread, inventoryManager.getItem(1).getStock(), "stock after reopening");
+
+        var removed = inventoryManager.getItem(1);
+
+        check(inventoryManager.removeItem(1), "removeItem(1) found nothing");
+        check(inventoryManager.addItem(new CosmeticItem(1)), "addItem(1) was rejected after removing it");
+
+        removed.setStock(42);
+
+        checkEquals(0, inventoryManager.getItem(1).getStock(), "stock of the re-added item");
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,152 @@
+package test;
+
+import static test.Assertions.check;
+import static test.Assertions.checkEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import src.inventory.index.SortedIndex;
+
+/**
+ * Checks that a {@link SortedIndex} lists its IDs in key order, through single additions, repositions, removals and
+ * bulk additions, by comparing it with the IDs of a {@link TreeMap} sorted from scratch.
+ * <p>
+ * Run from the root directory with <code>javac ./test/SortedIndexTest.java</code> and
+ * <code>java test.SortedIndexTest</code>.
+ * </p>
+ */
+public class SortedIndexTest {
+    private static final int idRange = 20_000;
+    // Keys are drawn from a narrow range, so that many IDs share a key.
+    private static final int keyRange = 500;
+    private static final int operations = 400_000;
+
+    public static void main(String[] args) {
+        randomOperationsMatchSortedMap();
+        bulkAdditionsMatchSortedMap();
+
+        System.out.println("SortedIndexTest passed.");
+    }
+
+    /**
+     * Applies random puts and removes to a {@link SortedIndex} and a {@link TreeMap} and compares them throughout.
+     */
+    private static void randomOperationsMatchSortedMap() {
+        var random = new Random(1);
+        var index = new SortedIndex<Integer>();
+        var expected = new TreeMap<Long, Integer>();
+
+        for (int i = 0; i < operations; ++i) {
+            long id = random.nextInt(idRange) + 1;
+
+            // Grow the index during the first half and shrink it during the second, so blocks split and merge.
+            if (random.nextInt(3) < (i < operations / 2 ? 2 : 1)) {
+                int key = random.nextInt(keyRange);
+
+                expected.put(id, key);
+                index.put(id, key);
+            } else {
+                check(index.remove(id) == (expected.remove(id) != null), "remove(" + id + ") disagreed");
+            }
+
+            checkEquals(expected.size(), index.size(), "size");
+
+            if (i % 20_000 == 0) {
+                checkContents(index, expected, random);
+            }
+        }
+
+        checkContents(index, expected, random);
+
+        for (long id : new ArrayList<>(expected.keySet())) {
+            expected.remove(id);
+            check(index.remove(id), "remove(" + id + ") found nothing");
+        }
+
+        checkEquals(0, index.ids(false).length, "IDs after removing every ID");
+    }
+
+    /**
+     * Adds batches of every size relative to the index, so that both inserting them one by one and merging them
+     * into new blocks are covered.
+     */
+    private static void bulkAdditionsMatchSortedMap() {
+        var random = new Random(2);
+        var index = new SortedIndex<Integer>();
+        var expected = new TreeMap<Long, Integer>();
+        long nextId = 1;
+
+        for (int batchSize : new int[] { 1_000, 10, 5_000, 1, 20_000, 100 }) {
+            var batch = new ArrayList<long[]>();
+
+            for (int i = 0; i < batchSize; ++i) {
+                // IDs are added out of order, so the batch is sorted by the index.
+                long id = nextId + random.nextInt(batchSize);
+                int key = random.nextInt(keyRange);
+
+                if (!expected.containsKey(id)) {
+                    expected.put(id, key);
+                    batch.add(new long[] { id, key });
+                }
+            }
+
+            nextId += batchSize;
+            index.putAll(batch, pair -> pair[0], pair -> (int) pair[1]);
+            checkEquals(expected.size(), index.size(), "size after adding " + batchSize + " IDs");
+            checkContents(index, expected, random);
+        }
+    }
+
+    private static void checkContents(SortedIndex<Integer> index, TreeMap<Long, Integer> expected, Random random) {
+        var order = new ArrayList<>(expected.entrySet());
+
+        order.sort(Map.Entry.<Long, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        var ascending = ids(order);
+
+        check(Arrays.equals(ascending, index.ids(false)), "IDs in ascending key order");
+
+        // IDs that share a key are still listed in ascending order when the keys descend.
+        var descending = new ArrayList<>(order);
+
+        descending.sort(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+        check(Arrays.equals(ids(descending), index.ids(true)), "IDs in descending key order");
+
+        int count = random.nextInt(order.size() + 2);
+
+        check(Arrays.equals(Arrays.copyOf(ascending, Math.min(count, ascending.length)), index.first(count)), "first " + count + " IDs");
+
+        for (int i = 0; i < 10; ++i) {
+            int from = random.nextInt(keyRange + 2) - 1;
+            int to = from + random.nextInt(keyRange / 10);
+            var inRange = order.stream().filter(entry -> entry.getValue() >= from && entry.getValue() <= to).toList();
+            var inRangeIds = ids(inRange);
+            int limit = random.nextBoolean() ? Integer.MAX_VALUE : random.nextInt(inRangeIds.length + 2);
+            var actual = index.ids(from, to, limit);
+
+            Arrays.sort(inRangeIds);
+
+            if (inRangeIds.length > limit) {
+                check(actual == null, "IDs with keys from " + from + " to " + to + " exceed the limit of " + limit);
+            } else {
+                check(Arrays.equals(inRangeIds, actual), "IDs with keys from " + from + " to " + to);
+            }
+        }
+    }
+
+    private static long[] ids(List<Map.Entry<Long, Integer>> entries) {
+        var ids = new long[entries.size()];
+
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = entries.get(i).getKey();
+        }
+
+        return ids;
+    }
+}
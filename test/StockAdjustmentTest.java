@@ -0,0 +1,330 @@
+package test;
+
+import static test.Assertions.check;
+import static test.Assertions.checkEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import src.inventory.InventoryManager;
+import src.inventory.InventorySnapshot;
+import src.inventory.InventoryTotals;
+import src.inventory.ReorderListener;
+import src.inventory.search.InventorySearchQuery;
+import src.inventory.search.ItemAttribute;
+import src.inventory.search.ItemSortMethod;
+import src.inventory.storage.ColumnarItemStorage;
+import src.inventory.storage.ItemStorage;
+import src.inventory.storage.TreeItemStorage;
+import src.item.CosmeticItem;
+import src.item.Item;
+import src.item.ItemListener;
+
+/**
+ * Changes the stock and prices of {@link Item}s from several threads at once, and checks that the indexes, the
+ * totals and the reorder reports of the {@link InventoryManager} end up matching the {@link Item}s, that no
+ * adjustment is lost to an edit that replaces the {@link Item} at the same time, and that snapshots taken in the
+ * middle of adjustments keep their stock.
+ * <p>
+ * Run from the root directory with <code>javac ./test/StockAdjustmentTest.java</code> and
+ * <code>java test.StockAdjustmentTest</code>.
+ * </p>
+ */
+public class StockAdjustmentTest {
+    private static final int threads = 4;
+    private static final int itemCount = 200;
+    private static final int changesPerThread = 100_000;
+    private static final long reorderLevel = 50;
+    private static final int adjustmentsPerThread = 200_000;
+    private static final int snapshotItemCount = 20;
+    private static final int snapshotAdjustmentsPerThread = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        indexesMatchItems("tree", new TreeItemStorage());
+        indexesMatchItems("columnar", new ColumnarItemStorage());
+        updatesKeepAdjustments();
+        snapshotsKeepTheirStock();
+
+        System.out.println("StockAdjustmentTest passed.");
+    }
+
+    private static void indexesMatchItems(String name, ItemStorage storage) throws Exception {
+        var inventoryManager = new InventoryManager(storage);
+
+        for (int id = 1; id <= itemCount; ++id) {
+            var item = new CosmeticItem(id);
+
+            item.setStock(reorderLevel);
+            item.setPrice(1);
+            item.setReorderLevel(reorderLevel);
+            inventoryManager.addItem(item);
+        }
+
+        // Every crossing is reported exactly once, so an item is below its reorder level after an odd amount of
+        // reports. Reports of concurrent crossings may arrive in either order, though.
+        var reports = new ConcurrentHashMap<Long, AtomicInteger>();
+
+        inventoryManager.addReorderListener(new ReorderListener() {
+            @Override
+            public void onBelowReorderLevel(Item item) {
+                count(item);
+            }
+
+            @Override
+            public void onRestocked(Item item) {
+                count(item);
+            }
+
+            private void count(Item item) {
+                reports.computeIfAbsent(item.getIdentifier().getID(), id -> new AtomicInteger()).incrementAndGet();
+            }
+        });
+
+        var pool = Executors.newFixedThreadPool(threads);
+        var changes = new ArrayList<Future<?>>();
+
+        try {
+            for (int thread = 0; thread < threads; ++thread) {
+                int seed = thread;
+
+                changes.add(pool.submit(() -> {
+                    var random = new Random(seed);
+
+                    for (int i = 0; i < changesPerThread; ++i) {
+                        long id = random.nextInt(itemCount) + 1;
+
+                        if (random.nextInt(10) == 0) {
+                            inventoryManager.getItem(id).setPrice(1 + random.nextInt(100));
+                        } else {
+                            try {
+                                inventoryManager.adjustStock(id, random.nextInt(21) - 10);
+                            } catch (IllegalArgumentException e) {
+                                // The stock would have gone below zero.
+                            }
+                        }
+
+                        // Readers bring the indexes up to date while the changes are being made.
+                        if (i % 1_000 == 0) {
+                            inventoryManager.getTotals();
+                            inventoryManager.searchItems(lowStockQuery());
+                        }
+                    }
+                }));
+            }
+
+            for (var change : changes) {
+                change.get();
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        var items = inventoryManager.getItems();
+        long stock = 0;
+        long value = 0;
+        int below = 0;
+
+        for (var item : items) {
+            stock += item.getStock();
+            value += InventoryTotals.valueInCents(item.getPrice(), item.getStock());
+
+            if (item.isBelowReorderLevel()) {
+                ++below;
+            }
+
+            var count = reports.get(item.getIdentifier().getID());
+
+            check(((count != null ? count.get() : 0) % 2 == 1) == item.isBelowReorderLevel(), name + ": reports of item " + item.getIdentifier().getID() + " do not match its stock");
+        }
+
+        var totals = inventoryManager.getTotals();
+
+        checkEquals(stock, totals.getTotalStock(), name + ": total stock");
+        checkEquals(value, totals.getTotalValueInCents(), name + ": total value");
+        checkEquals(below, inventoryManager.getItemsBelowReorderLevel().size(), name + ": items below their reorder level");
+        checkSortedByStock(inventoryManager.getItems(ItemSortMethod.stockSmallestToHighest), name);
+
+        var lowStock = inventoryManager.searchItems(lowStockQuery()).getItems();
+
+        checkEquals(items.stream().filter(item -> item.getStock() <= 10).count(), lowStock.size(), name + ": items with low stock");
+        System.out.printf("%s: %d items below their reorder level\n", name, below);
+    }
+
+    /**
+     * Adjusts the stock of an {@link Item} from several threads while another thread keeps replacing the
+     * {@link Item} with edited clones.
+     */
+    private static void updatesKeepAdjustments() throws Exception {
+        var inventoryManager = new InventoryManager();
+        var item = new CosmeticItem(1);
+
+        item.setStock(1_000);
+        item.setPrice(1);
+        inventoryManager.addItem(item);
+
+        var pool = Executors.newFixedThreadPool(threads + 1);
+        var adjustments = new ArrayList<Future<?>>();
+        var done = new AtomicInteger();
+        var updates = new AtomicInteger();
+        var rejected = new AtomicInteger();
+
+        try {
+            for (int thread = 0; thread < threads; ++thread) {
+                adjustments.add(pool.submit(() -> {
+                    for (int i = 0; i < adjustmentsPerThread; ++i) {
+                        check(inventoryManager.adjustStock(1, i % 2 == 0 ? 2 : -1), "adjustStock(1) found nothing");
+                    }
+
+                    done.incrementAndGet();
+                }));
+            }
+
+            var editor = pool.submit(() -> {
+                var random = new Random(1);
+
+                while (done.get() < threads) {
+                    var current = inventoryManager.getItem(1);
+                    long stock = current.getStock();
+                    var edited = current.clone();
+
+                    edited.setPrice(1 + random.nextInt(100));
+
+                    if (inventoryManager.updateItem(current, edited, stock)) {
+                        updates.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+
+            for (var adjustment : adjustments) {
+                adjustment.get();
+            }
+
+            editor.get();
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        // Every pair of adjustments adds one.
+        long expected = 1_000 + (long) threads * (adjustmentsPerThread / 2);
+
+        check(updates.get() > 0, "no update was published");
+        checkEquals(expected, inventoryManager.getItem(1).getStock(), "stock after concurrent updates");
+        checkEquals(expected, inventoryManager.getTotals().getTotalStock(), "total stock after concurrent updates");
+        System.out.printf("updates: %d published, %d rejected\n", updates.get(), rejected.get());
+    }
+
+    /**
+     * Adjusts the stock of {@link Item}s from several threads while another thread keeps taking snapshots, and checks
+     * that each snapshot reads the same before and after the adjustments that were under way when it was taken.
+     */
+    private static void snapshotsKeepTheirStock() throws Exception {
+        var inventoryManager = new InventoryManager();
+
+        for (int id = 1; id <= snapshotItemCount; ++id) {
+            var item = new SlowCosmeticItem(id);
+
+            item.setPrice(1);
+            inventoryManager.addItem(item);
+        }
+
+        var pool = Executors.newFixedThreadPool(threads + 1);
+        var adjustments = new ArrayList<Future<?>>();
+        var done = new AtomicInteger();
+        var snapshots = new AtomicInteger();
+
+        try {
+            for (int thread = 0; thread < threads; ++thread) {
+                int seed = thread;
+
+                adjustments.add(pool.submit(() -> {
+                    var random = new Random(seed);
+
+                    for (int i = 0; i < snapshotAdjustmentsPerThread; ++i) {
+                        inventoryManager.adjustStock(random.nextInt(snapshotItemCount) + 1, 1);
+                    }
+
+                    done.incrementAndGet();
+                }));
+            }
+
+            var snapshotter = pool.submit(() -> {
+                while (done.get() < threads) {
+                    var snapshot = inventoryManager.createSnapshot();
+                    var taken = stocks(snapshot);
+
+                    // Let the adjustments that were under way finish.
+                    Thread.yield();
+                    check(Arrays.equals(taken, stocks(snapshot)), "snapshot changed after it was taken");
+                    snapshots.incrementAndGet();
+                }
+            });
+
+            for (var adjustment : adjustments) {
+                adjustment.get();
+            }
+
+            snapshotter.get();
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        check(snapshots.get() > 0, "no snapshot was taken");
+        checkEquals((long) threads * snapshotAdjustmentsPerThread, inventoryManager.getTotals().getTotalStock(), "total stock after adjustments");
+        System.out.printf("snapshots: %d taken during adjustments\n", snapshots.get());
+    }
+
+    private static long[] stocks(InventorySnapshot snapshot) {
+        var stocks = new long[snapshotItemCount];
+
+        snapshot.forEach(item -> stocks[(int) item.getIdentifier().getID() - 1] = item.getStock());
+
+        return stocks;
+    }
+
+    private static InventorySearchQuery lowStockQuery() {
+        var query = new InventorySearchQuery();
+
+        query.setRange(ItemAttribute.stock, 0, 10);
+
+        return query;
+    }
+
+    private static void checkSortedByStock(List<Item> items, String name) {
+        checkEquals(itemCount, items.size(), name + ": items sorted by stock");
+
+        for (int i = 1; i < items.size(); ++i) {
+            check(items.get(i - 1).getStock() <= items.get(i).getStock(), name + ": items are not sorted by stock at index " + i);
+        }
+    }
+
+    /**
+     * A {@link CosmeticItem} that yields between announcing a change and making it, so that snapshots are often
+     * taken in between.
+     */
+    private static class SlowCosmeticItem extends CosmeticItem {
+        SlowCosmeticItem(long id) {
+            super(id);
+        }
+
+        @Override
+        protected ItemListener notifyBeforeChange() {
+            var listener = super.notifyBeforeChange();
+
+            Thread.yield();
+
+            return listener;
+        }
+    }
+}